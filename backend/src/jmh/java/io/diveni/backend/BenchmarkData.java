@@ -0,0 +1,84 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import io.diveni.backend.model.AdminVote;
+import io.diveni.backend.model.AvatarAnimal;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionConfig;
+import io.diveni.backend.model.SessionState;
+import io.diveni.backend.model.UserStory;
+
+/** Sessions of realistic size for the benchmarks, generated with a fixed seed. */
+public final class BenchmarkData {
+
+  public static final List<String> SET =
+      List.of("1", "2", "3", "5", "8", "13", "21", "34", "55", "89", "?");
+
+  private BenchmarkData() {}
+
+  public static List<Member> members(int count, Random random) {
+    List<Member> members = new ArrayList<>(count);
+    AvatarAnimal[] animals = AvatarAnimal.values();
+    for (int i = 0; i < count; i++) {
+      members.add(
+          new Member(
+              UUID.randomUUID().toString(),
+              "Member " + i,
+              String.format("#%06x", random.nextInt(0x1000000)),
+              animals[random.nextInt(animals.length)],
+              SET.get(random.nextInt(SET.size()))));
+    }
+    return members;
+  }
+
+  public static List<UserStory> userStories(int count, Random random) {
+    List<UserStory> userStories = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      userStories.add(
+          new UserStory(
+              UUID.randomUUID().toString(),
+              "Story " + i,
+              ("As a user I want feature " + i + " so that I can estimate it. ").repeat(4),
+              SET.get(random.nextInt(SET.size())),
+              i == 0));
+    }
+    return userStories;
+  }
+
+  public static Session session(int members, int userStories) {
+    Random random = new Random(42);
+    List<Member> memberList = members(members, random);
+    Map<String, Integer> memberVoted = new HashMap<>();
+    memberList.forEach(member -> memberVoted.put(member.getMemberID(), random.nextInt(5)));
+    return new Session(
+        null,
+        UUID.randomUUID().toString(),
+        UUID.randomUUID().toString(),
+        new SessionConfig(SET, userStories(userStories, random), 60, "US_MANUALLY", null),
+        UUID.randomUUID(),
+        memberList,
+        memberVoted,
+        new ArrayList<>(),
+        SessionState.START_VOTING,
+        new Date(),
+        null,
+        null,
+        null,
+        true,
+        new AdminVote("8"),
+        0L);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Statistics of a round by the number of members, with a Fibonacci set and host voting. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EstimationStatisticsBenchmark {
+
+  private static final List<String> SET =
+      List.of("1", "2", "3", "5", "8", "13", "21", "34", "55", "89", "?");
+
+  @Param({"10", "100", "500", "1000"})
+  private int members;
+
+  private Session session;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    List<Member> memberList = new ArrayList<>(members);
+    Map<String, Integer> memberVoted = new HashMap<>();
+    for (int i = 0; i < members; i++) {
+      String memberID = UUID.randomUUID().toString();
+      memberList.add(new Member(memberID, null, null, null, SET.get(random.nextInt(SET.size()))));
+      memberVoted.put(memberID, random.nextInt(5));
+    }
+    session =
+        new Session(
+            null,
+            UUID.randomUUID().toString(),
+            "admin",
+            new SessionConfig(SET, List.of(), null, null, null),
+            null,
+            memberList,
+            memberVoted,
+            new ArrayList<>(),
+            SessionState.START_VOTING,
+            null,
+            null,
+            null,
+            null,
+            true,
+            new AdminVote("8"),
+            null);
+  }
+
+  @Benchmark
+  public EstimationStatistics statistics() {
+    return EstimationStatistics.of(
+        session.getSessionConfig().getCardOrdinals(),
+        session.getMembers(),
+        session.getMemberVoted(),
+        session.getAdminID(),
+        session.getHostEstimation().getHostEstimation());
+  }
+}
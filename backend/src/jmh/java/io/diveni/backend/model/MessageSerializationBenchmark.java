@@ -0,0 +1,80 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.diveni.backend.BenchmarkData;
+import io.diveni.backend.model.notification.MemberPayload;
+import io.diveni.backend.model.notification.Notification;
+import io.diveni.backend.model.notification.NotificationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Serializing the payloads of the websocket messages sent during a voting round. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageSerializationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int members;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private MemberUpdate snapshot;
+
+  private MemberUpdate estimationChanged;
+
+  private MemberUpdate estimationsChanged;
+
+  private Notification notification;
+
+  @Setup
+  public void setUp() {
+    Session session = BenchmarkData.session(members, 0);
+    Member member = session.getMembers().get(0);
+    snapshot = MemberUpdate.snapshot(1, session.getMembers(), List.of());
+    estimationChanged = MemberUpdate.estimationChanged(2, member);
+    // a burst where a tenth of the session voted within one window
+    estimationsChanged =
+        MemberUpdate.estimationsChanged(
+            3, session.getMembers().subList(0, Math.max(1, members / 10)));
+    notification =
+        new Notification(NotificationType.MEMBER_LEFT, new MemberPayload(member.getMemberID()));
+  }
+
+  @Benchmark
+  public byte[] memberUpdateSnapshot() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(snapshot);
+  }
+
+  @Benchmark
+  public byte[] memberUpdateEstimationChanged() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(estimationChanged);
+  }
+
+  @Benchmark
+  public byte[] memberUpdateEstimationsChanged() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(estimationsChanged);
+  }
+
+  @Benchmark
+  public byte[] notification() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(notification);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.concurrent.TimeUnit;
+
+import io.diveni.backend.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The session changes of a voting round by the number of members. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int members;
+
+  private Session session;
+
+  private String voterID;
+
+  @Setup
+  public void setUp() {
+    session = BenchmarkData.session(members, 10);
+    voterID = session.getMembers().get(members / 2).getMemberID();
+  }
+
+  @Benchmark
+  public Session updateEstimation() {
+    return session.updateEstimation(voterID, "13");
+  }
+
+  @Benchmark
+  public Session selectHighlightedMembers() {
+    return session.selectHighlightedMembers();
+  }
+
+  @Benchmark
+  public Session resetEstimations() {
+    return session.resetEstimations();
+  }
+}
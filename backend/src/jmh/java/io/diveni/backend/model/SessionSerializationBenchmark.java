@@ -0,0 +1,57 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.concurrent.TimeUnit;
+
+import io.diveni.backend.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serializing a session as the REST endpoints do, with an object mapper configured like the one of
+ * Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionSerializationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int members;
+
+  @Param({"10", "500", "2000"})
+  private int userStories;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private Session session;
+
+  @Setup
+  public void setUp() {
+    session = BenchmarkData.session(members, userStories);
+  }
+
+  @Benchmark
+  public byte[] session() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(session);
+  }
+
+  @Benchmark
+  public byte[] userStories() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(session.getSessionConfig().getUserStories());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Session copies made on the vote path, chained mutators against a single builder. The gc
+ * profiler reports the allocated bytes per operation next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionVoteBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int members;
+
+  private Session session;
+
+  private String voterID;
+
+  private final Date now = new Date();
+
+  @Setup
+  public void setUp() {
+    List<Member> memberList = new ArrayList<>(members);
+    for (int i = 0; i < members; i++) {
+      memberList.add(new Member(UUID.randomUUID().toString(), null, null, null, "3"));
+    }
+    voterID = memberList.get(members / 2).getMemberID();
+    session =
+        new Session(
+            null,
+            UUID.randomUUID().toString(),
+            "admin",
+            new SessionConfig(List.of("1", "2", "3", "5", "8"), List.of(), null, null, null),
+            null,
+            memberList,
+            new HashMap<>(),
+            new ArrayList<>(),
+            SessionState.START_VOTING,
+            now,
+            null,
+            null,
+            null,
+            false,
+            new AdminVote(""),
+            0L);
+  }
+
+  @Benchmark
+  public Session voteChained() {
+    return session.updateEstimation(voterID, "5").setLastModified(now);
+  }
+
+  @Benchmark
+  public Session voteBuilder() {
+    return session.toBuilder().updateEstimation(voterID, "5").lastModified(now).build();
+  }
+
+  @Benchmark
+  public Session restartChained() {
+    return session
+        .updateSessionState(SessionState.START_VOTING)
+        .resetEstimations()
+        .setHostVoting(false)
+        .setTimerTimestamp("2022-01-01T00:00:00.000Z")
+        .setLastModified(now);
+  }
+
+  @Benchmark
+  public Session restartBuilder() {
+    return session
+        .toBuilder()
+        .sessionState(SessionState.START_VOTING)
+        .resetEstimations()
+        .hostVoting(false)
+        .timerTimestamp("2022-01-01T00:00:00.000Z")
+        .lastModified(now)
+        .build();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import io.diveni.backend.BenchmarkData;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.principals.MemberPrincipal;
+import io.diveni.backend.principals.SessionPrincipals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Principal lookups and broadcasts of a session with the given number of members, among other
+ * live sessions. Messages go to a channel that drops them, so the broadcasts measure the
+ * conversion and the fan out to the user destinations but not the broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebSocketServiceBenchmark {
+
+  private static final int OTHER_SESSIONS = 1000;
+
+  private static final int OTHER_SESSION_MEMBERS = 10;
+
+  @Param({"50", "100", "500"})
+  private int members;
+
+  // false sends every broadcast to each user destination
+  @Param({"true", "false"})
+  private boolean sessionTopics;
+
+  private final WebSocketService webSocketService = new WebSocketService();
+
+  private Session session;
+
+  private String memberID;
+
+  @Setup
+  public void setUp() {
+    MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    converter.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+    SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> true);
+    template.setMessageConverter(converter);
+    setField("simpMessagingTemplate", template);
+    setField("SESSION_TOPICS", sessionTopics);
+
+    for (int i = 0; i < OTHER_SESSIONS; i++) {
+      register(BenchmarkData.session(OTHER_SESSION_MEMBERS, 0));
+    }
+    session = BenchmarkData.session(members, 10);
+    register(session);
+    memberID = session.getMembers().get(members / 2).getMemberID();
+  }
+
+  private void register(Session session) {
+    webSocketService.setAdminUser(new AdminPrincipal(session.getSessionID(), session.getAdminID()));
+    for (Member member : session.getMembers()) {
+      webSocketService.addMemberIfNew(
+          new MemberPrincipal(session.getSessionID(), member.getMemberID()));
+    }
+  }
+
+  private void setField(String name, Object value) {
+    Field field = ReflectionUtils.findField(WebSocketService.class, name);
+    ReflectionUtils.makeAccessible(field);
+    ReflectionUtils.setField(field, webSocketService, value);
+  }
+
+  @Benchmark
+  public SessionPrincipals getSessionPrincipals() {
+    return webSocketService.getSessionPrincipals(session.getSessionID());
+  }
+
+  @Benchmark
+  public String getSessionIDByMemberID() {
+    return webSocketService.getSessionIDByMemberID(memberID).orElseThrow();
+  }
+
+  @Benchmark
+  public void sendMembersUpdate() {
+    webSocketService.sendMembersUpdate(session);
+  }
+
+  @Benchmark
+  public void sendSessionStateToMembers() {
+    webSocketService.sendSessionStateToMembers(session);
+  }
+
+  @Benchmark
+  public void sendUpdatedUserStoriesToMembers() {
+    webSocketService.sendUpdatedUserStoriesToMembers(session);
+  }
+}
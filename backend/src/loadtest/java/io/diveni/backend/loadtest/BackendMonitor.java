@@ -0,0 +1,92 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.loadtest;
+
+import java.io.IOException;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * Samples heap and CPU usage of the backend once a second over JMX. The backend has to be started
+ * with remote JMX enabled, e.g. {@code -Dcom.sun.management.jmxremote.port=9010
+ * -Dcom.sun.management.jmxremote.authenticate=false -Dcom.sun.management.jmxremote.ssl=false}.
+ */
+class BackendMonitor implements AutoCloseable {
+
+  private final JMXConnector connector;
+
+  private final MBeanServerConnection connection;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  private long samples;
+
+  private long heapUsedSum;
+
+  private long heapUsedMax;
+
+  private double cpuLoadSum;
+
+  private double cpuLoadMax;
+
+  BackendMonitor(String hostAndPort) throws IOException {
+    connector =
+        JMXConnectorFactory.connect(
+            new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + hostAndPort + "/jmxrmi"));
+    connection = connector.getMBeanServerConnection();
+    scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+  }
+
+  private void sample() {
+    try {
+      MemoryUsage heap =
+          MemoryUsage.from(
+              (CompositeData)
+                  connection.getAttribute(
+                      new ObjectName("java.lang:type=Memory"), "HeapMemoryUsage"));
+      double cpuLoad =
+          (Double)
+              connection.getAttribute(
+                  new ObjectName("java.lang:type=OperatingSystem"), "ProcessCpuLoad");
+      synchronized (this) {
+        samples++;
+        heapUsedSum += heap.getUsed();
+        heapUsedMax = Math.max(heapUsedMax, heap.getUsed());
+        cpuLoadSum += Math.max(0, cpuLoad);
+        cpuLoadMax = Math.max(cpuLoadMax, cpuLoad);
+      }
+    } catch (Exception e) {
+      System.err.println("Sampling the backend failed: " + e);
+    }
+  }
+
+  synchronized String summary() {
+    if (samples == 0) {
+      return "no samples";
+    }
+    return String.format(
+        "heap avg=%dMB max=%dMB, process cpu avg=%.0f%% max=%.0f%%",
+        heapUsedSum / samples / (1024 * 1024),
+        heapUsedMax / (1024 * 1024),
+        100 * cpuLoadSum / samples,
+        100 * cpuLoadMax);
+  }
+
+  @Override
+  public void close() throws IOException {
+    scheduler.shutdownNow();
+    connector.close();
+  }
+}
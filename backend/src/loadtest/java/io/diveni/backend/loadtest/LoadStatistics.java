@@ -0,0 +1,70 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counters and latencies collected by all simulated clients. */
+class LoadStatistics {
+
+  final AtomicLong messagesSent = new AtomicLong();
+
+  final AtomicLong messagesReceived = new AtomicLong();
+
+  final AtomicLong votes = new AtomicLong();
+
+  final AtomicLong rounds = new AtomicLong();
+
+  final AtomicLong timedOutRounds = new AtomicLong();
+
+  final AtomicLong errors = new AtomicLong();
+
+  final Latencies voteLatencies = new Latencies();
+
+  final Latencies revealLatencies = new Latencies();
+
+  /** Latencies in nanoseconds, kept in a growing array and sorted for the report. */
+  static class Latencies {
+
+    private long[] values = new long[1024];
+
+    private int size;
+
+    synchronized void record(long nanos) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = nanos;
+    }
+
+    synchronized String summary() {
+      if (size == 0) {
+        return "no samples";
+      }
+      long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return String.format(
+          "n=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+          size,
+          millis(percentile(sorted, 50)),
+          millis(percentile(sorted, 90)),
+          millis(percentile(sorted, 99)),
+          millis(percentile(sorted, 99.9)),
+          millis(sorted[size - 1]));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+      int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+      return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+  }
+}
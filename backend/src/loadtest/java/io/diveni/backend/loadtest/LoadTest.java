@@ -0,0 +1,139 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+/**
+ * Simulates planning poker sessions against a running backend and reports vote latencies,
+ * message rates and, if the backend exposes JMX, its heap and CPU usage. Started with {@code
+ * gradle loadTest}, configured with system properties:
+ *
+ * <ul>
+ *   <li>loadtest.url - backend to test, default http://localhost:8081
+ *   <li>loadtest.sessions - sessions running in parallel, default 10
+ *   <li>loadtest.members - members per session, default 20
+ *   <li>loadtest.rounds - voting rounds per session, default 10
+ *   <li>loadtest.thinkTimeMs - average time until a member votes and between rounds, default 1000
+ *   <li>loadtest.roundTimeoutMs - time after which a round that was not revealed counts as timed
+ *       out, default 30000
+ *   <li>loadtest.jmx - host:port of the JMX agent of the backend, not sampled if unset
+ * </ul>
+ */
+public final class LoadTest {
+
+  static class Config {
+
+    final String baseURL = System.getProperty("loadtest.url", "http://localhost:8081");
+
+    final int sessions = Integer.getInteger("loadtest.sessions", 10);
+
+    final int members = Integer.getInteger("loadtest.members", 20);
+
+    final int rounds = Integer.getInteger("loadtest.rounds", 10);
+
+    final int thinkTimeMs = Integer.getInteger("loadtest.thinkTimeMs", 1000);
+
+    final int roundTimeoutMs = Integer.getInteger("loadtest.roundTimeoutMs", 30000);
+
+    final int connectTimeoutMs = 10000;
+
+    final String jmx = System.getProperty("loadtest.jmx");
+  }
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Config config = new Config();
+    LoadStatistics statistics = new LoadStatistics();
+    HttpClient httpClient =
+        HttpClient.newBuilder().connectTimeout(Duration.ofMillis(config.connectTimeoutMs)).build();
+    ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+    heartbeatScheduler.initialize();
+    WebSocketStompClient stompClient =
+        new WebSocketStompClient(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+    stompClient.setMessageConverter(new StringMessageConverter());
+    stompClient.setTaskScheduler(heartbeatScheduler);
+    // member snapshots of large sessions exceed the default of 64 KB
+    stompClient.setInboundMessageSizeLimit(4 * 1024 * 1024);
+    ScheduledExecutorService scheduler =
+        Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+    BackendMonitor monitor = config.jmx != null ? new BackendMonitor(config.jmx) : null;
+
+    System.out.printf(
+        "Starting %d sessions with %d members and %d rounds each against %s%n",
+        config.sessions, config.members, config.rounds, config.baseURL);
+    List<SimulatedSession> sessions = new ArrayList<>();
+    try {
+      for (int i = 0; i < config.sessions; i++) {
+        SimulatedSession session =
+            new SimulatedSession(config, httpClient, stompClient, scheduler, statistics);
+        session.create();
+        sessions.add(session);
+      }
+      // admins have to be registered before their members
+      Thread.sleep(1000);
+      for (SimulatedSession session : sessions) {
+        session.joinMembers();
+      }
+      Thread.sleep(1000);
+      long connectErrors = statistics.errors.get();
+
+      CountDownLatch finished = new CountDownLatch(sessions.size());
+      long start = System.nanoTime();
+      sessions.forEach(session -> session.start(finished));
+      long expectedMs = (long) config.rounds * (config.roundTimeoutMs + config.thinkTimeMs);
+      if (!finished.await(expectedMs, TimeUnit.MILLISECONDS)) {
+        System.out.println("Not all sessions finished in time");
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("Duration:       %.1fs%n", seconds);
+      System.out.printf(
+          "Rounds:         %d revealed, %d timed out%n",
+          statistics.rounds.get(), statistics.timedOutRounds.get());
+      System.out.printf(
+          "Votes:          %d (%.0f/s)%n",
+          statistics.votes.get(), statistics.votes.get() / seconds);
+      System.out.printf(
+          "Messages:       %d sent (%.0f/s), %d received (%.0f/s)%n",
+          statistics.messagesSent.get(),
+          statistics.messagesSent.get() / seconds,
+          statistics.messagesReceived.get(),
+          statistics.messagesReceived.get() / seconds);
+      System.out.printf("Vote latency:   %s%n", statistics.voteLatencies.summary());
+      System.out.printf("Reveal latency: %s%n", statistics.revealLatencies.summary());
+      System.out.printf(
+          "Errors:         %d while connecting, %d while running%n",
+          connectErrors, statistics.errors.get() - connectErrors);
+      if (monitor != null) {
+        System.out.printf("Backend:        %s%n", monitor.summary());
+      }
+    } finally {
+      sessions.forEach(SimulatedSession::close);
+      scheduler.shutdownNow();
+      heartbeatScheduler.shutdown();
+      if (monitor != null) {
+        monitor.close();
+      }
+    }
+  }
+}
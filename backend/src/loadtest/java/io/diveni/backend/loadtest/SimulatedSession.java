@@ -0,0 +1,313 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One planning poker session driven like the web client does it. The admin starts a round, every
+ * member votes after a random think time and the last vote reveals the round automatically, then
+ * the admin restarts it. The latency of a vote is measured from sending it until the admin receives
+ * the member update that contains it.
+ */
+class SimulatedSession {
+
+  private static final List<String> SET = List.of("1", "2", "3", "5", "8", "13", "21", "?");
+
+  private static final String START_AND_RESTART_PAYLOAD =
+      "{\"hostVoting\":false,\"autoReveal\":true}";
+
+  private final LoadTest.Config config;
+
+  private final HttpClient httpClient;
+
+  private final WebSocketStompClient stompClient;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final LoadStatistics statistics;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Random random = new Random();
+
+  private final List<String> memberIDs = new ArrayList<>();
+
+  private final List<StompSession> memberConnections = new ArrayList<>();
+
+  // memberID -> time the vote of the current round was sent
+  private final Map<String, Long> pendingVotes = new ConcurrentHashMap<>();
+
+  private String sessionID;
+
+  private String adminID;
+
+  private StompSession adminConnection;
+
+  private volatile long lastVoteSentAt;
+
+  private int round;
+
+  private boolean roundRunning;
+
+  private ScheduledFuture<?> roundTimeout;
+
+  private CountDownLatch finished;
+
+  SimulatedSession(
+      LoadTest.Config config,
+      HttpClient httpClient,
+      WebSocketStompClient stompClient,
+      ScheduledExecutorService scheduler,
+      LoadStatistics statistics) {
+    this.config = config;
+    this.httpClient = httpClient;
+    this.stompClient = stompClient;
+    this.scheduler = scheduler;
+    this.statistics = statistics;
+  }
+
+  /** Creates the session and connects its admin. */
+  void create() throws Exception {
+    JsonNode response =
+        post(
+            "/sessions",
+            Map.of(
+                "set", SET,
+                "userStories", List.of(),
+                "userStoryMode", "NO_US"));
+    sessionID = response.path("session").path("sessionID").asText();
+    adminID = response.path("session").path("adminID").asText();
+    adminConnection = connect("sessionID=" + sessionID + "&adminID=" + adminID);
+    subscribe(adminConnection, "membersUpdated", this::onMembersUpdated);
+    send(adminConnection, "/ws/registerAdminUser", "");
+  }
+
+  /** Joins the members over REST and connects them. */
+  void joinMembers() throws Exception {
+    for (int i = 0; i < config.members; i++) {
+      String memberID = UUID.randomUUID().toString();
+      Map<String, Object> member = new HashMap<>();
+      member.put("memberID", memberID);
+      member.put("name", "Load " + i);
+      member.put("hexColor", String.format("#%06x", random.nextInt(0x1000000)));
+      member.put("avatarAnimal", "WOLF");
+      member.put("currentEstimation", null);
+      Map<String, Object> joinInfo = new HashMap<>();
+      joinInfo.put("password", null);
+      joinInfo.put("member", member);
+      post("/sessions/" + sessionID + "/join", joinInfo);
+
+      StompSession connection = connect("sessionID=" + sessionID + "&memberID=" + memberID);
+      // every member receives the broadcasts, the first one also follows the session state
+      subscribe(connection, "membersUpdated", payload -> {});
+      subscribe(connection, "notifications", payload -> {});
+      if (i == 0) {
+        subscribe(connection, "member", this::onSessionState);
+        subscribe(connection, "member/autoreveal", this::onSessionState);
+      }
+      send(connection, "/ws/registerMember", "");
+      memberIDs.add(memberID);
+      memberConnections.add(connection);
+    }
+  }
+
+  /** Plays the configured number of rounds and counts down the latch when done. */
+  synchronized void start(CountDownLatch finished) {
+    this.finished = finished;
+    startRound("/ws/startVoting");
+  }
+
+  private synchronized void startRound(String destination) {
+    roundRunning = true;
+    pendingVotes.clear();
+    roundTimeout =
+        scheduler.schedule(this::onRoundTimeout, config.roundTimeoutMs, TimeUnit.MILLISECONDS);
+    send(adminConnection, destination, START_AND_RESTART_PAYLOAD);
+  }
+
+  private void onSessionState(String payload) {
+    if (payload.startsWith("START_VOTING")) {
+      // the round started on the server, votes sent from now on count for it
+      for (int i = 0; i < memberConnections.size(); i++) {
+        int member = i;
+        scheduler.schedule(
+            () -> vote(member), random.nextInt(2 * config.thinkTimeMs + 1), TimeUnit.MILLISECONDS);
+      }
+    } else if (payload.equals("VOTING_FINISHED")) {
+      onRevealed();
+    }
+  }
+
+  private void vote(int member) {
+    String card = SET.get(random.nextInt(SET.size()));
+    long now = System.nanoTime();
+    pendingVotes.put(memberIDs.get(member), now);
+    lastVoteSentAt = now;
+    statistics.votes.incrementAndGet();
+    send(
+        memberConnections.get(member),
+        "/ws/vote",
+        "{\"vote\":\"" + card + "\",\"autoReveal\":true}");
+  }
+
+  private void onMembersUpdated(String payload) {
+    long now = System.nanoTime();
+    try {
+      JsonNode update = objectMapper.readTree(payload);
+      if (update.hasNonNull("member")) {
+        recordVote(update.get("member"), now);
+      }
+      for (JsonNode member : update.path("members")) {
+        recordVote(member, now);
+      }
+    } catch (IOException e) {
+      statistics.errors.incrementAndGet();
+    }
+  }
+
+  private void recordVote(JsonNode member, long now) {
+    if (member.hasNonNull("currentEstimation")) {
+      Long sentAt = pendingVotes.remove(member.path("memberID").asText());
+      if (sentAt != null) {
+        statistics.voteLatencies.record(now - sentAt);
+      }
+    }
+  }
+
+  private synchronized void onRevealed() {
+    if (!roundRunning) {
+      return;
+    }
+    statistics.revealLatencies.record(System.nanoTime() - lastVoteSentAt);
+    statistics.rounds.incrementAndGet();
+    endRound();
+  }
+
+  private synchronized void onRoundTimeout() {
+    if (!roundRunning) {
+      return;
+    }
+    statistics.timedOutRounds.incrementAndGet();
+    endRound();
+  }
+
+  private void endRound() {
+    roundRunning = false;
+    roundTimeout.cancel(false);
+    if (++round < config.rounds) {
+      scheduler.schedule(
+          () -> startRound("/ws/restart"), config.thinkTimeMs, TimeUnit.MILLISECONDS);
+    } else {
+      finished.countDown();
+    }
+  }
+
+  void close() {
+    memberConnections.forEach(StompSession::disconnect);
+    if (adminConnection != null) {
+      send(adminConnection, "/ws/closeSession", "");
+      adminConnection.disconnect();
+    }
+  }
+
+  private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+    HttpResponse<String> response =
+        httpClient.send(
+            HttpRequest.newBuilder(URI.create(config.baseURL + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IOException("POST " + path + " returned " + response.statusCode());
+    }
+    return objectMapper.readTree(response.body());
+  }
+
+  private StompSession connect(String query) throws Exception {
+    return stompClient
+        .connectAsync(
+            config.baseURL + "/connect?" + query,
+            new StompSessionHandlerAdapter() {
+              @Override
+              public void handleException(
+                  StompSession session,
+                  StompCommand command,
+                  StompHeaders headers,
+                  byte[] payload,
+                  Throwable exception) {
+                statistics.errors.incrementAndGet();
+              }
+
+              @Override
+              public void handleTransportError(StompSession session, Throwable exception) {
+                statistics.errors.incrementAndGet();
+              }
+
+              @Override
+              public void handleFrame(StompHeaders headers, Object payload) {
+                // ERROR frames of the broker
+                statistics.errors.incrementAndGet();
+              }
+            })
+        .get(config.connectTimeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Subscribes to the user destination and to the session topic, like the web client. */
+  private void subscribe(StompSession connection, String route, Consumer<String> handler) {
+    StompFrameHandler frameHandler =
+        new StompFrameHandler() {
+          @Override
+          public Class<?> getPayloadType(StompHeaders headers) {
+            return String.class;
+          }
+
+          @Override
+          public void handleFrame(StompHeaders headers, Object payload) {
+            statistics.messagesReceived.incrementAndGet();
+            handler.accept((String) payload);
+          }
+        };
+    connection.subscribe("/users/updates/" + route, frameHandler);
+    connection.subscribe("/updates/sessions/" + sessionID + "/" + route, frameHandler);
+  }
+
+  private void send(StompSession connection, String destination, String payload) {
+    try {
+      connection.send(destination, payload);
+      statistics.messagesSent.incrementAndGet();
+    } catch (RuntimeException e) {
+      statistics.errors.incrementAndGet();
+    }
+  }
+}
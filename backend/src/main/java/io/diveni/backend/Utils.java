@@ -6,14 +6,13 @@
 package io.diveni.backend;
 
 import java.net.URI;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Optional;
 import java.util.Random;
-import java.util.TimeZone;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.util.MultiValueMap;
@@ -21,7 +20,9 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 public class Utils {
 
-  private static final DateFormat dateFormatISO8601 = getDateFormatISO();
+  // immutable and thread-safe, unlike SimpleDateFormat
+  private static final DateTimeFormatter dateFormatISO8601 =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
 
   private Utils() {}
 
@@ -58,21 +59,12 @@ public class Utils {
     }
   }
 
-  private static final DateFormat getDateFormatISO() {
-    TimeZone tz = TimeZone.getTimeZone("UTC");
-    DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    df.setTimeZone(tz);
-    return df;
-  }
-
   public static String getTimestampISO8601(Date date) {
-    return dateFormatISO8601.format(date);
+    return dateFormatISO8601.format(date.toInstant());
   }
 
-  public static Date getDateFromString(String dateString) throws ParseException {
-    TimeZone tz = TimeZone.getTimeZone("UTC");
-    DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    df.setTimeZone(tz);
-    return df.parse(dateString);
+  /** Parses a timestamp written by {@link #getTimestampISO8601} into epoch milliseconds. */
+  public static long getEpochMillisFromString(String dateString) {
+    return Instant.from(dateFormatISO8601.parse(dateString)).toEpochMilli();
   }
 }
@@ -0,0 +1,28 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.diveni.backend.handler.SessionAffinityInterceptor;
+
+@Configuration
+public class ClusterConfig implements WebMvcConfigurer {
+
+  @Autowired private SessionAffinityInterceptor sessionAffinityInterceptor;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    // REST calls of a session are answered by the node owning it, the lookup by every node
+    registry
+        .addInterceptor(sessionAffinityInterceptor)
+        .addPathPatterns("/sessions/**")
+        .excludePathPatterns("/sessions/*/node");
+  }
+}
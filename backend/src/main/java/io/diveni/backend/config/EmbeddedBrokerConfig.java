@@ -0,0 +1,43 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.config;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Starts an in-memory Artemis broker with a STOMP acceptor for local testing of the broker relay.
+ * Run one backend with this profile and further backends with WEBSOCKET_BROKER_RELAY=true pointing
+ * to it. Artemis is only on the classpath of gradle bootRun, the packaged jar does not contain it.
+ */
+@Configuration
+@Profile("embedded-broker")
+public class EmbeddedBrokerConfig {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddedBrokerConfig.class);
+
+  @Value("${WEBSOCKET_BROKER_PORT:61613}")
+  private int BROKER_PORT;
+
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  public EmbeddedActiveMQ embeddedBroker() throws Exception {
+    LOGGER.info("Starting embedded STOMP broker on port {}", BROKER_PORT);
+    ConfigurationImpl configuration = new ConfigurationImpl();
+    configuration.setPersistenceEnabled(false);
+    configuration.setSecurityEnabled(false);
+    configuration.addAcceptorConfiguration(
+        "stomp", "tcp://0.0.0.0:" + BROKER_PORT + "?protocols=STOMP");
+    EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+    broker.setConfiguration(configuration);
+    return broker;
+  }
+}
@@ -0,0 +1,136 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+
+/**
+ * HTTP clients shared by the issue tracker providers. Connections to Jira and Azure DevOps are
+ * pooled and kept alive, so only the first call to a host pays for the TCP and TLS handshakes.
+ * Jira Cloud and Azure DevOps use the {@link RestTemplate}, Jira Server the {@link HttpTransport}
+ * of the Google OAuth client. Both pools have the same limits.
+ */
+@Configuration
+public class HttpClientConfig {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfig.class);
+
+  // pooled connections unused for this long are closed before the server drops them
+  private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+  @Value("${ISSUE_TRACKER_MAX_CONNECTIONS:50}")
+  private int MAX_CONNECTIONS;
+
+  @Value("${ISSUE_TRACKER_MAX_CONNECTIONS_PER_HOST:20}")
+  private int MAX_CONNECTIONS_PER_HOST;
+
+  @Value("${ISSUE_TRACKER_CONNECT_TIMEOUT_MS:5000}")
+  private int CONNECT_TIMEOUT_MS;
+
+  @Value("${ISSUE_TRACKER_READ_TIMEOUT_MS:30000}")
+  private int READ_TIMEOUT_MS;
+
+  @Value("${ISSUE_TRACKER_IMPORT_CONCURRENCY:4}")
+  private int IMPORT_CONCURRENCY;
+
+  @Value("${ISSUE_TRACKER_IMPORT_JOBS:4}")
+  private int IMPORT_JOBS;
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient issueTrackerHttpClient() {
+    LOGGER.info(
+        "Issue tracker connections: max {}, per host {}, connect timeout {} ms, read timeout {} ms",
+        MAX_CONNECTIONS,
+        MAX_CONNECTIONS_PER_HOST,
+        CONNECT_TIMEOUT_MS,
+        READ_TIMEOUT_MS);
+    return HttpClients.custom()
+        .setConnectionManager(
+            PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(MAX_CONNECTIONS)
+                .setMaxConnPerRoute(MAX_CONNECTIONS_PER_HOST)
+                .setDefaultConnectionConfig(
+                    ConnectionConfig.custom()
+                        .setConnectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                        .setSocketTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                        .build())
+                .build())
+        .setDefaultRequestConfig(
+            RequestConfig.custom()
+                // waiting for a free connection of the pool
+                .setConnectionRequestTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .setResponseTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofSeconds(IDLE_TIMEOUT_SECONDS))
+        .build();
+  }
+
+  @Bean
+  public RestTemplate issueTrackerRestTemplate(CloseableHttpClient issueTrackerHttpClient) {
+    return new RestTemplate(new HttpComponentsClientHttpRequestFactory(issueTrackerHttpClient));
+  }
+
+  /**
+   * Requests the pages of an issue import. The pool is shared by all imports, so it bounds the
+   * requests to the issue trackers, the queue holds the pages waiting for a thread.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor issueImportExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(IMPORT_CONCURRENCY);
+    executor.setMaxPoolSize(IMPORT_CONCURRENCY);
+    executor.setThreadNamePrefix("issue-import-");
+    return executor;
+  }
+
+  /**
+   * Runs the imports started by the admins over the WebSocket. A job waits for its pages, which
+   * run on the {@link #issueImportExecutor()}, so the two pools must stay apart.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor issueImportJobExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(IMPORT_JOBS);
+    executor.setMaxPoolSize(IMPORT_JOBS);
+    executor.setThreadNamePrefix("issue-import-job-");
+    return executor;
+  }
+
+  /**
+   * Transport of the Jira Server requests. The Google client brings its own Apache HttpClient 4,
+   * its default builder keeps the behavior of the Google client without redirects and automatic
+   * retries. The connect and read timeouts are set on each request.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public HttpTransport issueTrackerHttpTransport() {
+    return new ApacheHttpTransport(
+        ApacheHttpTransport.newDefaultHttpClientBuilder()
+            .setMaxConnTotal(MAX_CONNECTIONS)
+            .setMaxConnPerRoute(MAX_CONNECTIONS_PER_HOST)
+            .evictExpiredConnections()
+            .evictIdleConnections(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .build());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.service.DiveniMetrics;
+import io.diveni.backend.service.SessionStore;
+import io.diveni.backend.service.WebSocketService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+/**
+ * Gauges of the live sessions and the STOMP channels. They are bound once all beans exist, the
+ * values are read on every scrape.
+ */
+@Configuration
+public class MetricsConfig {
+
+  // clients choose the destinations they send to, unknown ones must not add meters without end
+  private static final int MAX_HANDLER_DESTINATIONS = 100;
+
+  @Bean
+  public MeterFilter handlerDestinationLimit() {
+    return MeterFilter.maximumAllowableTags(
+        DiveniMetrics.HANDLER_TIMER, "destination", MAX_HANDLER_DESTINATIONS, MeterFilter.deny());
+  }
+
+  @Bean
+  public MeterBinder sessionMetrics(WebSocketService webSocketService, SessionStore sessionStore) {
+    return registry -> {
+      Gauge.builder("diveni.sessions.live", webSocketService, WebSocketService::getLiveSessionCount)
+          .description("Sessions with participants connected to this node")
+          .register(registry);
+      Gauge.builder("diveni.members.live", webSocketService, WebSocketService::getLiveMemberCount)
+          .description("Members connected to this node")
+          .register(registry);
+      Gauge.builder("diveni.sessions.cached", sessionStore, SessionStore::getCachedSessionCount)
+          .description("Sessions held in memory")
+          .register(registry);
+      Gauge.builder("diveni.sessions.unflushed", sessionStore, SessionStore::getDirtySessionCount)
+          .description("Sessions with changes not yet written to MongoDB")
+          .register(registry);
+    };
+  }
+
+  @Bean
+  public MeterBinder channelMetrics(
+      SessionMailboxExecutor sessionMailboxExecutor,
+      @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor) {
+    return registry -> {
+      Gauge.builder(
+              "diveni.websocket.inbound.queued",
+              sessionMailboxExecutor,
+              SessionMailboxExecutor::getQueuedMessages)
+          .description("Client messages waiting in the mailboxes of their sessions")
+          .register(registry);
+      Gauge.builder(
+              "diveni.websocket.outbound.queued",
+              outboundExecutor,
+              executor -> executor.getThreadPoolExecutor().getQueue().size())
+          .description("Messages waiting to be written to the client connections")
+          .register(registry);
+    };
+  }
+}
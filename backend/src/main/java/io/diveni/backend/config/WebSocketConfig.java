@@ -5,14 +5,23 @@
 */
 package io.diveni.backend.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import io.diveni.backend.handler.MessageHandlerMetricsInterceptor;
 import io.diveni.backend.handler.PrincipalWebSocketHandler;
+import io.diveni.backend.handler.SessionAffinityInterceptor;
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.handler.SessionTopicInterceptor;
+import io.diveni.backend.service.WebSocketService;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -21,19 +30,79 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
   @Value("${SERVER_URL:#{null}}")
   private String SERVER_URL;
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketConfig.class);
+
+  @Value("${WEBSOCKET_BROKER_RELAY:false}")
+  private boolean BROKER_RELAY;
+
+  @Value("${WEBSOCKET_BROKER_HOST:localhost}")
+  private String BROKER_HOST;
+
+  @Value("${WEBSOCKET_BROKER_PORT:61613}")
+  private int BROKER_PORT;
+
+  @Value("${WEBSOCKET_BROKER_LOGIN:guest}")
+  private String BROKER_LOGIN;
+
+  @Value("${WEBSOCKET_BROKER_PASSCODE:guest}")
+  private String BROKER_PASSCODE;
+
+  @Value("${SESSIONS_WRITE_BEHIND:true}")
+  private boolean SESSIONS_WRITE_BEHIND;
+
+  @Autowired private SessionMailboxExecutor sessionMailboxExecutor;
+
+  @Autowired private SessionTopicInterceptor sessionTopicInterceptor;
+
+  @Autowired private SessionAffinityInterceptor sessionAffinityInterceptor;
+
+  @Autowired private MessageHandlerMetricsInterceptor messageHandlerMetricsInterceptor;
+
   @Override
   public void configureMessageBroker(MessageBrokerRegistry registry) {
-    registry.enableSimpleBroker("/updates");
+    if (BROKER_RELAY) {
+      if (SESSIONS_WRITE_BEHIND) {
+        // each node would keep its own copy of the sessions
+        throw new IllegalStateException(
+            "WEBSOCKET_BROKER_RELAY=true requires SESSIONS_WRITE_BEHIND=false");
+      }
+      LOGGER.info("Relaying broker messages to {}:{}", BROKER_HOST, BROKER_PORT);
+      registry
+          .enableStompBrokerRelay("/updates")
+          .setRelayHost(BROKER_HOST)
+          .setRelayPort(BROKER_PORT)
+          .setClientLogin(BROKER_LOGIN)
+          .setClientPasscode(BROKER_PASSCODE)
+          .setSystemLogin(BROKER_LOGIN)
+          .setSystemPasscode(BROKER_PASSCODE);
+      // users connected to another node are resolved there
+      registry.setUserDestinationBroadcast(WebSocketService.UNRESOLVED_USER_DESTINATION);
+      registry.setUserRegistryBroadcast(WebSocketService.USER_REGISTRY_DESTINATION);
+    } else {
+      registry.enableSimpleBroker("/updates");
+    }
+    // member updates are versioned deltas, clients have to receive them in the order they were sent
+    registry.setPreservePublishOrder(true);
     // prefix for client sending a websocket message
     registry.setApplicationDestinationPrefixes("/ws");
     registry.setUserDestinationPrefix("/users");
   }
 
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    // messages of one session are handled in order, sessions run in parallel
+    registration.executor(sessionMailboxExecutor);
+    // only participants may subscribe to the topic of a session
+    registration.interceptors(sessionTopicInterceptor, messageHandlerMetricsInterceptor);
+  }
+
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
     registry
         .addEndpoint("/connect")
         .setHandshakeHandler(new PrincipalWebSocketHandler())
+        // handshakes of sessions owned by another node are redirected there
+        .addInterceptors(sessionAffinityInterceptor)
         .setAllowedOrigins(SERVER_URL)
         .withSockJS();
   }
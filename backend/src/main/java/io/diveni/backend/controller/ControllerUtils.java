@@ -24,6 +24,16 @@ public class ControllerUtils {
                     HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
   }
 
+  static Session getSessionWithoutUserStoriesByMemberIDOrThrowResponse(
+      DatabaseService databaseService, String memberID) {
+    return databaseService
+        .getSessionWithoutUserStoriesByMemberID(memberID)
+        .orElseThrow(
+            () ->
+                new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
+  }
+
   static Session getSessionOrThrowResponse(DatabaseService databaseService, String sessionID) {
     return databaseService
         .getSessionByID(sessionID)
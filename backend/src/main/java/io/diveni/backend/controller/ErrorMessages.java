@@ -15,6 +15,8 @@ public class ErrorMessages {
 
   public static String memberNotExistsErrorMessage = "member does not exist";
 
+  public static String concurrentUpdateErrorMessage = "session is changed too often, try again";
+
   public static String wrongPasswordMessage = "no or wrong password given";
 
   public static String failedToRetrieveRequestTokenErrorMessage =
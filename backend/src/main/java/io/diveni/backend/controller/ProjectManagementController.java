@@ -13,7 +13,7 @@ import io.diveni.backend.model.TokenIdentifier;
 import io.diveni.backend.model.UserStory;
 import io.diveni.backend.model.VerificationCode;
 import io.diveni.backend.service.DatabaseService;
-import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProvider;
+import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviders;
 import io.diveni.backend.service.projectmanagementproviders.azuredevops.AzureDevOpsService;
 import io.diveni.backend.service.projectmanagementproviders.jiracloud.JiraCloudService;
 import io.diveni.backend.service.projectmanagementproviders.jiraserver.JiraServerService;
@@ -50,6 +50,8 @@ public class ProjectManagementController {
 
   @Autowired AzureDevOpsService azureDevOpsService;
 
+  @Autowired ProjectManagementProviders projectManagementProviders;
+
   private final String PROVIDER_NOT_ENABLED_MESSAGE =
       "The selected issue tracker is not enabled. Make sure to set all required parameters.";
 
@@ -120,7 +122,7 @@ public class ProjectManagementController {
   public ResponseEntity<List<Project>> getProjects(
       @RequestHeader("X-Token-ID") String tokenIdentifier) {
     LOGGER.debug("--> getProjects(), tokenIdentifier={}", tokenIdentifier);
-    val projectManagementProvider = getProjectManagementProvider(tokenIdentifier);
+    val projectManagementProvider = projectManagementProviders.getProvider(tokenIdentifier);
 
     ResponseEntity<List<Project>> response;
     if (projectManagementProvider == null) {
@@ -143,7 +145,7 @@ public class ProjectManagementController {
   public ResponseEntity<List<UserStory>> getIssues(
       @RequestHeader("X-Token-ID") String tokenIdentifier, @PathVariable String projectName) {
     LOGGER.debug("--> getIssues(), projectName={}", projectName);
-    val projectManagementProvider = getProjectManagementProvider(tokenIdentifier);
+    val projectManagementProvider = projectManagementProviders.getProvider(tokenIdentifier);
 
     ResponseEntity<List<UserStory>> response;
     if (projectManagementProvider == null) {
@@ -166,7 +168,7 @@ public class ProjectManagementController {
   public void updateIssue(
       @RequestHeader("X-Token-ID") String tokenIdentifier, @RequestBody UserStory userStory) {
     LOGGER.debug("--> updateIssue(), userStoryId={}", userStory.getId());
-    val projectManagementProvider = getProjectManagementProvider(tokenIdentifier);
+    val projectManagementProvider = projectManagementProviders.getProvider(tokenIdentifier);
 
     if (projectManagementProvider == null) {
       LOGGER.error("Could not update issue!");
@@ -188,7 +190,7 @@ public class ProjectManagementController {
       @RequestBody UserStory userStory) {
     LOGGER.debug("--> createIssue(), projectID={}, userStoryId={}", projectID, userStory.getId());
 
-    val projectManagementProvider = getProjectManagementProvider(tokenIdentifier);
+    val projectManagementProvider = projectManagementProviders.getProvider(tokenIdentifier);
 
     if (projectManagementProvider == null) {
       LOGGER.error("Failed to create issue!");
@@ -211,7 +213,7 @@ public class ProjectManagementController {
   public void deleteIssue(
       @RequestHeader("X-Token-ID") String tokenIdentifier, @PathVariable String jiraID) {
     LOGGER.debug("--> deleteIssue(), jiraID={}", jiraID);
-    val projectManagementProvider = getProjectManagementProvider(tokenIdentifier);
+    val projectManagementProvider = projectManagementProviders.getProvider(tokenIdentifier);
 
     if (projectManagementProvider == null) {
       LOGGER.error("Could not delete issue!");
@@ -224,18 +226,4 @@ public class ProjectManagementController {
     }
     LOGGER.debug("<-- deleteIssue()");
   }
-
-  private ProjectManagementProvider getProjectManagementProvider(String tokenIdentifier) {
-    if (jiraServerService.containsToken(tokenIdentifier)) {
-      return jiraServerService;
-    } else if (jiraCloudService.containsToken(tokenIdentifier)) {
-      return jiraCloudService;
-    } else if (azureDevOpsService.containsToken(tokenIdentifier)) {
-      return azureDevOpsService;
-    }
-    // If a new project management provider should be implemented, it can just be
-    // added here
-
-    return null;
-  }
 }
@@ -8,7 +8,6 @@ package io.diveni.backend.controller;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,6 +21,7 @@ import io.diveni.backend.model.Session;
 import io.diveni.backend.model.SessionConfig;
 import io.diveni.backend.model.SessionState;
 import io.diveni.backend.service.DatabaseService;
+import io.diveni.backend.service.cluster.ClusterService;
 import io.diveni.backend.service.projectmanagementproviders.jiraserver.JiraServerService;
 
 import org.bson.types.ObjectId;
@@ -50,6 +50,8 @@ public class RoutesController {
 
   @Autowired DatabaseService databaseService;
 
+  @Autowired ClusterService clusterService;
+
   @PostMapping(value = "/sessions")
   public ResponseEntity<Map<String, Object>> createSession(
       @RequestParam("tokenIdentifier") Optional<String> tokenIdentifier,
@@ -66,11 +68,18 @@ public class RoutesController {
             .collect(Collectors.toSet());
     ObjectId databaseID =
         Stream.generate(ObjectId::new).filter(s -> !usedDatabaseIDs.contains(s)).findFirst().get();
-    List<String> sessionIds =
+    String sessionID =
         Stream.generate(Utils::generateRandomID)
             .filter(s -> !usedSessionIDs.contains(s))
-            .limit(2)
-            .collect(Collectors.toList());
+            // a new session is created on the node that owns it
+            .filter(clusterService::isOwner)
+            .findFirst()
+            .get();
+    String adminID =
+        Stream.generate(Utils::generateRandomID)
+            .filter(s -> !usedSessionIDs.contains(s) && !s.equals(sessionID))
+            .findFirst()
+            .get();
     val accessToken =
         tokenIdentifier
             .map(token -> jiraServerService.getAccessTokens().remove(token))
@@ -78,8 +87,8 @@ public class RoutesController {
     val session =
         new Session(
             databaseID,
-            sessionIds.get(0),
-            sessionIds.get(1),
+            sessionID,
+            adminID,
             sessionConfig,
             UUID.randomUUID(),
             new ArrayList<>(),
@@ -91,6 +100,7 @@ public class RoutesController {
             null,
             LocalDate.now(),
             false,
+            null,
             null);
     databaseService.saveSession(session);
     val responseMap = Map.of("session", session, "adminCookie", session.getAdminCookie());
@@ -131,8 +141,17 @@ public class RoutesController {
     return session;
   }
 
-  private synchronized Session addMemberToSession(
-      String sessionID, Member member, Optional<String> password) {
+  @GetMapping(value = "/sessions/{sessionID}/node")
+  public Map<String, String> getSessionNode(@PathVariable String sessionID) {
+    LOGGER.debug("--> getSessionNode(), sessionID={}", sessionID);
+    // no URL means the session is served by the node that answered
+    Map<String, String> node = new HashMap<>();
+    node.put("url", clusterService.getOwnerURL(sessionID).orElse(null));
+    LOGGER.debug("<-- getSessionNode()");
+    return node;
+  }
+
+  private Session addMemberToSession(String sessionID, Member member, Optional<String> password) {
     LOGGER.debug("--> addMemberToSession(), sessionID={}, member={}", sessionID, member);
     val session =
         databaseService
@@ -141,11 +160,6 @@ public class RoutesController {
                 () ->
                     new ResponseStatusException(
                         HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
-    List<Member> members = session.getMembers().stream().map(m -> m).collect(Collectors.toList());
-    if (members.stream().anyMatch(m -> m.getMemberID().equals(member.getMemberID()))) {
-      throw new ResponseStatusException(
-          HttpStatus.BAD_REQUEST, ErrorMessages.memberExistsErrorMessage);
-    }
     if (session.getSessionConfig().getPassword() != null) {
       if (!password.isPresent()
           || !password.get().equals(session.getSessionConfig().getPassword())) {
@@ -153,8 +167,7 @@ public class RoutesController {
             HttpStatus.UNAUTHORIZED, ErrorMessages.wrongPasswordMessage);
       }
     }
-    members.add(member);
-    databaseService.saveSession(session.updateMembers(members));
+    databaseService.addMember(sessionID, member);
     LOGGER.debug("<-- addMemberToSession()");
     return session;
   }
@@ -6,11 +6,12 @@
 package io.diveni.backend.controller;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import io.diveni.backend.Utils;
-import io.diveni.backend.model.Member;
+import io.diveni.backend.model.IssueImportRequest;
 import io.diveni.backend.model.Session;
 import io.diveni.backend.model.SessionState;
 import io.diveni.backend.model.UserStory;
@@ -18,18 +19,16 @@ import io.diveni.backend.model.notification.MemberPayload;
 import io.diveni.backend.model.notification.Notification;
 import io.diveni.backend.model.notification.NotificationType;
 import io.diveni.backend.service.DatabaseService;
+import io.diveni.backend.service.IssueImportService;
+import io.diveni.backend.service.TimerService;
 import io.diveni.backend.service.WebSocketService;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.GetMapping;
-import java.text.ParseException;
 
 import io.diveni.backend.principals.AdminPrincipal;
 import io.diveni.backend.principals.MemberPrincipal;
@@ -41,6 +40,8 @@ public class WebsocketController {
   private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketController.class);
   @Autowired DatabaseService databaseService;
   @Autowired private WebSocketService webSocketService;
+  @Autowired private TimerService timerService;
+  @Autowired private IssueImportService issueImportService;
 
   @MessageMapping("/registerAdminUser")
   public void registerAdminUser(AdminPrincipal principal) {
@@ -49,9 +50,12 @@ public class WebsocketController {
         ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID());
     webSocketService.setAdminUser(principal);
     if (session.getTimerTimestamp() != null) {
-      session = session.setTimerTimestamp(Utils.getTimestampISO8601(new Date()));
-      databaseService.saveSession(session);
+      session =
+          databaseService.updateSession(
+              principal.getSessionID(),
+              s -> s.toBuilder().timerTimestamp(Utils.getTimestampISO8601(new Date())));
       if (!SessionState.VOTING_FINISHED.equals(session.getSessionState())) {
+        startTimer(session);
         webSocketService.sendTimerStartMessage(session, session.getTimerTimestamp());
       }
     }
@@ -91,22 +95,20 @@ public class WebsocketController {
     if (principal instanceof MemberPrincipal) {
       webSocketService.removeMember((MemberPrincipal) principal);
       val session =
-          ControllerUtils.getSessionByMemberIDOrThrowResponse(
-                  databaseService, ((MemberPrincipal) principal).getMemberID())
-              .removeMember(((MemberPrincipal) principal).getMemberID());
-      databaseService.saveSession(session);
-      webSocketService.sendMembersUpdate(session);
+          databaseService.removeMember(
+              ControllerUtils.getSessionWithoutUserStoriesByMemberIDOrThrowResponse(
+                      databaseService, ((MemberPrincipal) principal).getMemberID())
+                  .getSessionID(),
+              ((MemberPrincipal) principal).getMemberID());
+      webSocketService.sendMemberLeftUpdate(session, ((MemberPrincipal) principal).getMemberID());
       webSocketService.sendNotification(
           session,
           new Notification(
               NotificationType.MEMBER_LEFT,
               new MemberPayload(((MemberPrincipal) principal).getMemberID())));
-      boolean votingCompleted = checkIfAllMembersVoted(session.getMembers(), session);
+      boolean votingCompleted = checkIfAllMembersVoted(session);
       if (votingCompleted) {
-        votingFinished(
-            new AdminPrincipal(
-                session.getSessionID(),
-                databaseService.getSessionByID(session.getSessionID()).get().getAdminID()));
+        votingFinished(new AdminPrincipal(session.getSessionID(), session.getAdminID()));
       }
     } else {
       val session =
@@ -115,17 +117,15 @@ public class WebsocketController {
       webSocketService.sendNotification(
           session, new Notification(NotificationType.ADMIN_LEFT, null));
       webSocketService.removeAdmin((AdminPrincipal) principal);
+      issueImportService.cancelImport(session.getSessionID());
       LOGGER.debug("<-- removeMember()");
     }
   }
 
   @MessageMapping("/kick-member")
   public void kickMember(AdminPrincipal principal, @Payload String memberID) {
-    val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID())
-            .removeMember(memberID);
-    databaseService.saveSession(session);
-    webSocketService.sendMembersUpdate(session);
+    val session = databaseService.removeMember(principal.getSessionID(), memberID);
+    webSocketService.sendMemberLeftUpdate(session, memberID);
     webSocketService.sendNotification(
         session, new Notification(NotificationType.MEMBER_LEFT, new MemberPayload(memberID)));
     webSocketService.removeMember(new MemberPrincipal(principal.getSessionID(), memberID));
@@ -136,6 +136,8 @@ public class WebsocketController {
     LOGGER.debug("--> closeSession()");
     val session =
         ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID());
+    timerService.cancel(session.getSessionID());
+    issueImportService.cancelImport(session.getSessionID());
     webSocketService.sendSessionStateToMembers(
         session.updateSessionState(SessionState.SESSION_CLOSED));
     webSocketService.removeSession(session);
@@ -152,6 +154,23 @@ public class WebsocketController {
     LOGGER.debug("<-- getMemberUpdate()");
   }
 
+  @MessageMapping("/membersSnapshot")
+  public void getMembersSnapshot(Principal principal) {
+    LOGGER.debug("--> getMembersSnapshot()");
+    if (principal instanceof AdminPrincipal) {
+      val session =
+          ControllerUtils.getSessionOrThrowResponse(
+              databaseService, ((AdminPrincipal) principal).getSessionID());
+      webSocketService.sendMembersSnapshotToUser(session, principal.getName());
+    } else if (principal instanceof MemberPrincipal) {
+      val session =
+          ControllerUtils.getSessionByMemberIDOrThrowResponse(
+              databaseService, ((MemberPrincipal) principal).getMemberID());
+      webSocketService.sendMembersSnapshotToUser(session, principal.getName());
+    }
+    LOGGER.debug("<-- getMembersSnapshot()");
+  }
+
   @MessageMapping("/startVoting")
   public void startEstimation(AdminPrincipal principal, @Payload String message) {
     LOGGER.debug("--> startEstimation()");
@@ -159,12 +178,15 @@ public class WebsocketController {
     boolean stateOfHostVoting = jsonObject.getBoolean("hostVoting");
     boolean autoReveal = jsonObject.getBoolean("autoReveal");
     val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID())
-            .updateSessionState(SessionState.START_VOTING)
-            .resetCurrentHighlights()
-            .setHostVoting(stateOfHostVoting)
-            .setTimerTimestamp(Utils.getTimestampISO8601(new Date()));
-    databaseService.saveSession(session);
+        databaseService.updateSession(
+            principal.getSessionID(),
+            s ->
+                s.toBuilder()
+                    .sessionState(SessionState.START_VOTING)
+                    .currentHighlights(new ArrayList<>())
+                    .hostVoting(stateOfHostVoting)
+                    .timerTimestamp(Utils.getTimestampISO8601(new Date())));
+    startTimer(session);
     webSocketService.sendMembersHostVoting(session);
     webSocketService.sendSessionStateToMembersWithAutoReveal(session, autoReveal);
     webSocketService.sendTimerStartMessage(session, session.getTimerTimestamp());
@@ -174,12 +196,15 @@ public class WebsocketController {
   @MessageMapping("/votingFinished")
   public void votingFinished(AdminPrincipal principal) {
     LOGGER.debug("--> votingFinished()");
+    timerService.cancel(principal.getSessionID());
     val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID())
-            .updateSessionState(SessionState.VOTING_FINISHED)
-            .selectHighlightedMembers()
-            .resetTimerTimestamp();
-    databaseService.saveSession(session);
+        databaseService.updateSession(
+            principal.getSessionID(),
+            s ->
+                s.selectHighlightedMembers()
+                    .toBuilder()
+                    .sessionState(SessionState.VOTING_FINISHED)
+                    .timerTimestamp(null));
     if (session.getHostVoting()) {
       webSocketService.sendMembersAdminVote(session);
     }
@@ -189,18 +214,15 @@ public class WebsocketController {
   }
 
   @MessageMapping("/vote/admin")
-  public synchronized void processVoteAdmin(
+  public void processVoteAdmin(
       @Payload String message, AdminPrincipal admin) { // add Payload
     LOGGER.debug("--> processVoteAdmin()");
     JSONObject jsonObject = new JSONObject(message);
     String vote = jsonObject.getString("vote");
     boolean autoReveal = jsonObject.getBoolean("autoReveal");
-    val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, admin.getSessionID())
-            .setHostEstimation(vote);
-    databaseService.saveSession(session);
+    val session = databaseService.setHostEstimation(admin.getSessionID(), vote);
     if (autoReveal) {
-      if (checkIfAllMembersVoted(session.getMembers(), session)) {
+      if (checkIfAllMembersVoted(session)) {
         votingFinished(new AdminPrincipal(admin.getSessionID(), admin.getAdminID()));
       }
     }
@@ -208,50 +230,47 @@ public class WebsocketController {
   }
 
   @MessageMapping("/vote")
-  public synchronized void processVote(@Payload String message, MemberPrincipal member) {
+  public void processVote(@Payload String message, MemberPrincipal member) {
     LOGGER.debug("--> processVote()");
     JSONObject jsonObject = new JSONObject(message);
     String vote = jsonObject.getString("vote");
     boolean autoReveal = jsonObject.getBoolean("autoReveal");
-    val session =
-        ControllerUtils.getSessionByMemberIDOrThrowResponse(databaseService, member.getMemberID())
-            .updateEstimation(member.getMemberID(), vote);
-    webSocketService.sendMembersUpdate(session);
-    databaseService.saveSession(session);
+    val session = databaseService.updateEstimation(member.getMemberID(), vote);
+    webSocketService.sendMemberEstimationUpdate(session, member.getMemberID());
 
     if (autoReveal) {
-      if (checkIfAllMembersVoted(session.getMembers(), session)) {
-        votingFinished(
-            new AdminPrincipal(
-                member.getSessionID(),
-                databaseService.getSessionByID(member.getSessionID()).get().getAdminID()));
+      if (checkIfAllMembersVoted(session)) {
+        votingFinished(new AdminPrincipal(member.getSessionID(), session.getAdminID()));
       }
     }
     LOGGER.debug("<-- processVote()");
   }
 
-  private boolean checkIfAllMembersVoted(List<Member> members, Session session) {
-    if (session.getHostVoting() == false) {
-      return members.stream().filter(m -> m.getCurrentEstimation() == null).count() == 0;
+  private boolean checkIfAllMembersVoted(Session session) {
+    if (!session.getVoteTally().allVoted()) {
+      return false;
     }
-    return members.stream().filter(m -> m.getCurrentEstimation() == null).count() == 0
-        && null != session.getHostEstimation()
-        && !"".equals(session.getHostEstimation().getHostEstimation());
+    return !session.getHostVoting()
+        || (null != session.getHostEstimation()
+            && !"".equals(session.getHostEstimation().getHostEstimation()));
   }
 
   @MessageMapping("/restart")
-  public synchronized void restartVote(AdminPrincipal principal, @Payload String message) {
+  public void restartVote(AdminPrincipal principal, @Payload String message) {
     LOGGER.debug("--> restartVote()");
     JSONObject jsonObject = new JSONObject(message);
     boolean stateOfHostVoting = jsonObject.getBoolean("hostVoting");
     boolean autoReveal = jsonObject.getBoolean("autoReveal");
     val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID())
-            .updateSessionState(SessionState.START_VOTING)
-            .resetEstimations()
-            .setHostVoting(stateOfHostVoting)
-            .setTimerTimestamp(Utils.getTimestampISO8601(new Date()));
-    databaseService.saveSession(session);
+        databaseService.updateSession(
+            principal.getSessionID(),
+            s ->
+                s.toBuilder()
+                    .sessionState(SessionState.START_VOTING)
+                    .resetEstimations()
+                    .hostVoting(stateOfHostVoting)
+                    .timerTimestamp(Utils.getTimestampISO8601(new Date())));
+    startTimer(session);
     webSocketService.sendMembersUpdate(session);
     webSocketService.sendMembersHostVoting(session);
     webSocketService.sendSessionStateToMembersWithAutoReveal(session, autoReveal);
@@ -260,20 +279,31 @@ public class WebsocketController {
     LOGGER.debug("<-- restartVote()");
   }
 
+  /** Finishes the voting when the timer runs out, whether the admin is connected or not. */
+  private void startTimer(Session session) {
+    timerService.start(
+        session,
+        () ->
+            databaseService
+                .getSessionByID(session.getSessionID())
+                .filter(s -> SessionState.START_VOTING.equals(s.getSessionState()))
+                .ifPresent(
+                    s -> votingFinished(new AdminPrincipal(s.getSessionID(), s.getAdminID()))));
+  }
+
   @MessageMapping("/adminUpdatedUserStories")
-  public synchronized void adminUpdatedUserStories(
+  public void adminUpdatedUserStories(
       AdminPrincipal principal, @Payload List<UserStory> userStories) {
     LOGGER.debug("--> adminUpdatedUserStories()");
     val session =
-        ControllerUtils.getSessionOrThrowResponse(databaseService, principal.getSessionID())
-            .updateUserStories(userStories);
-    databaseService.saveSession(session);
+        databaseService.updateSession(
+            principal.getSessionID(), s -> s.toBuilder().updateUserStories(userStories));
     webSocketService.sendUpdatedUserStoriesToMembers(session);
     LOGGER.debug("<-- adminUpdatedUserStories()");
   }
 
   @MessageMapping("/adminSelectedUserStory")
-  public synchronized void adminSelectedUserStory(
+  public void adminSelectedUserStory(
       AdminPrincipal principal, @Payload Integer index) {
     LOGGER.debug("--> adminSelectedUserStory()");
     val session =
@@ -282,23 +312,30 @@ public class WebsocketController {
     LOGGER.debug("<-- adminSelectedUserStory()");
   }
 
-  @GetMapping("/get-timer-value")
-  public synchronized ResponseEntity<Long> getTimeValue(String memberID) throws ParseException {
-    LOGGER.debug("--> get-timer-value()");
-    Session session =
-        ControllerUtils.getSessionByMemberIDOrThrowResponse(databaseService, memberID);
-    Date startDate = Utils.getDateFromString(session.getTimerTimestamp());
-    Date currentDate = new Date();
-    long timeDifference = currentDate.getTime() - startDate.getTime();
-    LOGGER.debug("<-- get-timer-value() + " + timeDifference);
-    return new ResponseEntity<>(timeDifference, HttpStatus.OK);
+  /**
+   * Starts importing the issues of the project, the stories are sent to the admin page by page on
+   * {@link WebSocketService#ISSUE_IMPORT_DESTINATION}.
+   */
+  @MessageMapping("/importIssues")
+  public void importIssues(AdminPrincipal principal, @Payload IssueImportRequest request) {
+    LOGGER.debug("--> importIssues(), projectName={}", request.getProjectName());
+    issueImportService.startImport(
+        principal, request.getTokenIdentifier(), request.getProjectName());
+    LOGGER.debug("<-- importIssues()");
+  }
+
+  @MessageMapping("/cancelImport")
+  public void cancelImport(AdminPrincipal principal) {
+    LOGGER.debug("--> cancelImport()");
+    issueImportService.cancelImport(principal.getSessionID());
+    LOGGER.debug("<-- cancelImport()");
   }
 
   public boolean isMemberInSession(Principal principal) {
     LOGGER.debug("--> isMemberInSession()");
     if (principal instanceof MemberPrincipal) {
       LOGGER.debug("<-- isMemberInSession()");
-      return databaseService.getSessionByMemberID(((MemberPrincipal) principal).getMemberID()).isPresent();
+      return databaseService.existsSessionByMemberID(((MemberPrincipal) principal).getMemberID());
     }
     LOGGER.debug("<-- isMemberInSession(). principal is NOT instanceof MemberPrincipal");
     return false;
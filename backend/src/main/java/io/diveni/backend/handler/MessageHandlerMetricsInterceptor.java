@@ -0,0 +1,100 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import java.security.Principal;
+
+import io.diveni.backend.jfr.MessageHandledEvent;
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.principals.MemberPrincipal;
+import io.diveni.backend.service.DiveniMetrics;
+import io.diveni.backend.service.WebSocketService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the {@code @MessageMapping} handlers on the inbound channel and records them as {@link
+ * MessageHandledEvent} for the flight recorder. The interceptor runs on the thread handling the
+ * message, after it was taken out of the mailbox of its session, so the time spent waiting in the
+ * mailbox is not included.
+ */
+@Component
+public class MessageHandlerMetricsInterceptor implements ExecutorChannelInterceptor {
+
+  private static final ThreadLocal<Handling> HANDLING = new ThreadLocal<>();
+
+  @Autowired private DiveniMetrics metrics;
+
+  // lazy, the websocket service needs the broker which is configured with this interceptor
+  @Lazy @Autowired private WebSocketService webSocketService;
+
+  @Override
+  public Message<?> beforeHandle(
+      Message<?> message, MessageChannel channel, MessageHandler handler) {
+    // the broker and user destination handlers see every message as well, subscriptions are
+    // left out because their destinations contain the session
+    if (handler instanceof SimpAnnotationMethodMessageHandler
+        && SimpMessageType.MESSAGE.equals(
+            SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+      MessageHandledEvent event = new MessageHandledEvent();
+      event.begin();
+      HANDLING.set(new Handling(System.nanoTime(), event));
+    }
+    return message;
+  }
+
+  @Override
+  public void afterMessageHandled(
+      Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+    Handling handling = HANDLING.get();
+    if (handling == null || !(handler instanceof SimpAnnotationMethodMessageHandler)) {
+      return;
+    }
+    HANDLING.remove();
+    long nanos = System.nanoTime() - handling.start;
+    String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    if (destination == null) {
+      return;
+    }
+    metrics.recordHandler(destination, ex, nanos);
+    String sessionID = getSessionID(SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+    handling.event.commit(
+        sessionID,
+        destination,
+        () -> sessionID == null ? 0 : webSocketService.getLiveMemberCount(sessionID),
+        message.getPayload() instanceof byte[] payload ? payload.length : -1);
+  }
+
+  private static String getSessionID(Principal user) {
+    if (user instanceof AdminPrincipal) {
+      return ((AdminPrincipal) user).getSessionID();
+    }
+    if (user instanceof MemberPrincipal) {
+      return ((MemberPrincipal) user).getSessionID();
+    }
+    return null;
+  }
+
+  private static final class Handling {
+
+    private final long start;
+
+    private final MessageHandledEvent event;
+
+    Handling(long start, MessageHandledEvent event) {
+      this.start = start;
+      this.event = event;
+    }
+  }
+}
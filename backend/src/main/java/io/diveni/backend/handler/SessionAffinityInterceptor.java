@@ -0,0 +1,101 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.service.cluster.ClusterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.val;
+
+/**
+ * Keeps the requests of a session on the node that owns it, see {@link ClusterService}. REST calls
+ * with a sessionID in their path are sent to the owner with a temporary redirect. Browsers do not
+ * follow redirects of websocket upgrades or cross-origin SockJS transports, so those handshakes are
+ * rejected and the client asks {@code /sessions/{sessionID}/node} for the owner before it
+ * reconnects.
+ */
+@Component
+public class SessionAffinityInterceptor implements HandshakeInterceptor, HandlerInterceptor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionAffinityInterceptor.class);
+
+  private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+  @Autowired private ClusterService clusterService;
+
+  @Override
+  public boolean beforeHandshake(
+      ServerHttpRequest request,
+      ServerHttpResponse response,
+      WebSocketHandler wsHandler,
+      Map<String, Object> attributes) {
+    val ownerURL = Utils.getSessionIDfromUri(request.getURI()).flatMap(clusterService::getOwnerURL);
+    if (ownerURL.isEmpty()) {
+      return true;
+    }
+    response.setStatusCode(HttpStatus.CONFLICT);
+    LOGGER.debug("beforeHandshake() rejected, session is owned by {}", ownerURL.get());
+    return false;
+  }
+
+  @Override
+  public void afterHandshake(
+      ServerHttpRequest request,
+      ServerHttpResponse response,
+      WebSocketHandler wsHandler,
+      Exception exception) {}
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+      return true;
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, String> pathVariables =
+        (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    val ownerURL =
+        Optional.ofNullable(pathVariables)
+            .map(variables -> variables.get("sessionID"))
+            .flatMap(clusterService::getOwnerURL);
+    if (ownerURL.isEmpty()) {
+      return true;
+    }
+    response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+    response.setHeader(
+        HttpHeaders.LOCATION, getRedirectLocation(ownerURL.get(), request).toString());
+    LOGGER.debug("preHandle() redirected to {}", ownerURL.get());
+    return false;
+  }
+
+  private static URI getRedirectLocation(String ownerURL, HttpServletRequest request) {
+    String query = request.getQueryString();
+    return URI.create(
+        ownerURL
+            + URL_PATH_HELPER.getPathWithinApplication(request)
+            + (query != null ? "?" + query : ""));
+  }
+}
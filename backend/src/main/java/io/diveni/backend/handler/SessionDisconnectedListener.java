@@ -20,14 +20,21 @@ public class SessionDisconnectedListener implements ApplicationListener<SessionD
   private static final Logger LOGGER = LoggerFactory.getLogger(SessionDisconnectedListener.class);
   @Autowired WebsocketController controller;
 
+  @Autowired SessionMailboxExecutor sessionMailboxExecutor;
+
   @Override
   public void onApplicationEvent(SessionDisconnectEvent event) {
     LOGGER.debug("--> onApplicationEvent()");
     var principal = event.getUser();
     if (principal instanceof MemberPrincipal) {
-      if (controller.isMemberInSession(principal)) {
-        controller.removeMember(principal);
-      }
+      // queued behind the messages the member sent before disconnecting
+      sessionMailboxExecutor.execute(
+          ((MemberPrincipal) principal).getSessionID(),
+          () -> {
+            if (controller.isMemberInSession(principal)) {
+              controller.removeMember(principal);
+            }
+          });
     }
     LOGGER.debug("<-- onApplicationEvent()");
   }
@@ -0,0 +1,173 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.principals.MemberPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executor of the inbound STOMP channel. Messages of a user that belongs to a session are put into
+ * the mailbox of that session and handled one after another, so handlers of the same session never
+ * run concurrently and always see the messages in the order they arrived. Different sessions are
+ * handled in parallel on the shared pool. Messages without a session are run directly.
+ */
+@Component
+public class SessionMailboxExecutor extends ThreadPoolTaskExecutor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionMailboxExecutor.class);
+
+  // a busy session gives the thread back after this many messages so others are not starved
+  private static final int MAX_MESSAGES_PER_RUN = 50;
+
+  private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+  private boolean initialized = false;
+
+  public SessionMailboxExecutor(@Value("${WEBSOCKET_INBOUND_POOL_SIZE:#{null}}") Integer poolSize) {
+    setCorePoolSize(poolSize != null ? poolSize : Runtime.getRuntime().availableProcessors() * 2);
+    setThreadNamePrefix("session-mailbox-");
+  }
+
+  // registered as bean and as executor of the inbound channel, which initializes it again
+  @Override
+  public synchronized void initialize() {
+    if (!initialized) {
+      super.initialize();
+      initialized = true;
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    String sessionID = getSessionID(task);
+    if (sessionID == null) {
+      super.execute(task);
+    } else {
+      execute(sessionID, task);
+    }
+  }
+
+  /** Runs the task in the mailbox of the given session. */
+  public void execute(String sessionID, Runnable task) {
+    boolean[] schedule = new boolean[1];
+    mailboxes.compute(
+        sessionID,
+        (id, mailbox) -> {
+          Mailbox current = mailbox != null ? mailbox : new Mailbox();
+          // a new mailbox has nobody working on it yet
+          schedule[0] = mailbox == null;
+          current.add(task);
+          return current;
+        });
+    if (schedule[0]) {
+      super.execute(() -> processMailbox(sessionID));
+    }
+  }
+
+  public int getMailboxDepth(String sessionID) {
+    Mailbox mailbox = mailboxes.get(sessionID);
+    return mailbox != null ? mailbox.depth() : 0;
+  }
+
+  /** Snapshot of the number of queued messages per session with a non empty mailbox. */
+  public Map<String, Integer> getMailboxDepths() {
+    Map<String, Integer> depths = new HashMap<>();
+    mailboxes.forEach((sessionID, mailbox) -> depths.put(sessionID, mailbox.depth()));
+    return depths;
+  }
+
+  /** Messages waiting in all mailboxes. */
+  public int getQueuedMessages() {
+    int queued = 0;
+    for (Mailbox mailbox : mailboxes.values()) {
+      queued += mailbox.depth();
+    }
+    return queued;
+  }
+
+  private void processMailbox(String sessionID) {
+    for (int i = 0; i < MAX_MESSAGES_PER_RUN; i++) {
+      Runnable task = nextTask(sessionID);
+      if (task == null) {
+        return;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("processMailbox() message of session {} failed", sessionID, e);
+      }
+    }
+    super.execute(() -> processMailbox(sessionID));
+  }
+
+  private Runnable nextTask(String sessionID) {
+    Runnable[] next = new Runnable[1];
+    mailboxes.computeIfPresent(
+        sessionID,
+        (id, mailbox) -> {
+          next[0] = mailbox.poll();
+          // an empty mailbox is dropped, the next message creates and schedules a new one
+          return next[0] != null ? mailbox : null;
+        });
+    return next[0];
+  }
+
+  private static String getSessionID(Runnable task) {
+    if (!(task instanceof MessageHandlingRunnable)) {
+      return null;
+    }
+    Principal user =
+        SimpMessageHeaderAccessor.getUser(
+            ((MessageHandlingRunnable) task).getMessage().getHeaders());
+    if (user instanceof AdminPrincipal) {
+      return ((AdminPrincipal) user).getSessionID();
+    }
+    if (user instanceof MemberPrincipal) {
+      return ((MemberPrincipal) user).getSessionID();
+    }
+    return null;
+  }
+
+  /**
+   * Queue of one session. Only modified while holding the lock of its entry in {@link
+   * #mailboxes}, the depth can be read at any time.
+   */
+  private static final class Mailbox {
+
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+
+    private volatile int depth = 0;
+
+    void add(Runnable task) {
+      queue.add(task);
+      depth = queue.size();
+    }
+
+    Runnable poll() {
+      Runnable task = queue.poll();
+      depth = queue.size();
+      return task;
+    }
+
+    int depth() {
+      return depth;
+    }
+  }
+}
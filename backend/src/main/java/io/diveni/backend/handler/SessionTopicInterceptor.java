@@ -0,0 +1,104 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import java.security.Principal;
+
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.principals.MemberPrincipal;
+import io.diveni.backend.service.DatabaseService;
+import io.diveni.backend.service.WebSocketService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Guards the session topics on the inbound channel. Only the admin and the members of a session
+ * may subscribe to its topic, and clients may not publish to broker destinations themselves. Below
+ * the broker prefix clients may only subscribe to the exact topic of their session, their private
+ * messages arrive on the user destinations.
+ */
+@Component
+public class SessionTopicInterceptor implements ChannelInterceptor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionTopicInterceptor.class);
+
+  private static final String BROKER_PREFIX = "/updates";
+
+  @Autowired private DatabaseService databaseService;
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+    String destination = accessor.getDestination();
+    if (destination == null) {
+      return message;
+    }
+    if (StompCommand.SEND.equals(accessor.getCommand())
+        && destination.startsWith(BROKER_PREFIX)) {
+      LOGGER.warn("preSend() rejected client message to {}", destination);
+      throw new MessagingException(message, "Clients may not send to " + destination);
+    }
+    if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+      return message;
+    }
+    // the simple broker matches subscriptions as patterns, a pattern could span other sessions
+    if (isPattern(destination)) {
+      LOGGER.warn("preSend() rejected subscription to {}", destination);
+      throw new MessagingException(message, "Patterns are not allowed: " + destination);
+    }
+    if (destination.startsWith(BROKER_PREFIX)
+        && !destination.startsWith(WebSocketService.SESSION_TOPIC_PREFIX)) {
+      LOGGER.warn("preSend() rejected subscription to {}", destination);
+      throw new MessagingException(message, "Not a client destination");
+    }
+    if (destination.startsWith(WebSocketService.SESSION_TOPIC_PREFIX)
+        && !isAllowed(accessor.getUser(), getSessionID(destination))) {
+      LOGGER.warn("preSend() rejected subscription to {}", destination);
+      throw new MessagingException(message, "Not a participant of the session");
+    }
+    return message;
+  }
+
+  private boolean isAllowed(Principal user, String sessionID) {
+    if (user instanceof AdminPrincipal) {
+      AdminPrincipal admin = (AdminPrincipal) user;
+      return admin.getSessionID().equals(sessionID)
+          && databaseService
+              .getSessionByID(sessionID)
+              .map(session -> admin.getAdminID().equals(session.getAdminID()))
+              .orElse(false);
+    }
+    if (user instanceof MemberPrincipal) {
+      MemberPrincipal member = (MemberPrincipal) user;
+      return member.getSessionID().equals(sessionID)
+          && databaseService
+              .getSessionByMemberID(member.getMemberID())
+              .map(session -> sessionID.equals(session.getSessionID()))
+              .orElse(false);
+    }
+    return false;
+  }
+
+  private static boolean isPattern(String destination) {
+    return destination.indexOf('*') >= 0
+        || destination.indexOf('?') >= 0
+        || destination.indexOf('{') >= 0;
+  }
+
+  private static String getSessionID(String destination) {
+    String topic = destination.substring(WebSocketService.SESSION_TOPIC_PREFIX.length());
+    int end = topic.indexOf('/');
+    return end < 0 ? topic : topic.substring(0, end);
+  }
+}
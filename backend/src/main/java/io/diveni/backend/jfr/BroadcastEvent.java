@@ -0,0 +1,53 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.jfr;
+
+import java.util.function.IntSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** A broadcast of a session handed to the broker. */
+@Name("io.diveni.Broadcast")
+@Label("Broadcast")
+@Category({"Diveni", "WebSocket"})
+@Description("A message sent to the participants of a session")
+@StackTrace(false)
+@Threshold("1 ms")
+public class BroadcastEvent extends Event {
+
+  @Label("Session ID")
+  String sessionID;
+
+  @Label("Destination")
+  String destination;
+
+  @Label("Members")
+  @Description("Participants of the session connected to this node")
+  int members;
+
+  @Label("Payload Size")
+  @DataAmount
+  int payloadBytes;
+
+  /** Ends the event, the serialized size of the broadcast is only computed if it is committed. */
+  public void commit(String sessionID, String destination, int members, IntSupplier payloadBytes) {
+    end();
+    if (shouldCommit()) {
+      this.sessionID = sessionID;
+      this.destination = destination;
+      this.members = members;
+      this.payloadBytes = payloadBytes.getAsInt();
+      commit();
+    }
+  }
+}
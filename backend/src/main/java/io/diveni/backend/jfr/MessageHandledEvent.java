@@ -0,0 +1,53 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.jfr;
+
+import java.util.function.IntSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** A STOMP message handled by a {@code @MessageMapping} handler. */
+@Name("io.diveni.MessageHandled")
+@Label("Message Handled")
+@Category({"Diveni", "WebSocket"})
+@Description("A client message handled by the websocket controller")
+@StackTrace(false)
+@Threshold("1 ms")
+public class MessageHandledEvent extends Event {
+
+  @Label("Session ID")
+  String sessionID;
+
+  @Label("Destination")
+  String destination;
+
+  @Label("Members")
+  @Description("Members of the session connected to this node")
+  int members;
+
+  @Label("Payload Size")
+  @DataAmount
+  int payloadBytes;
+
+  /** Ends the event and commits it with the member count if it exceeds the threshold. */
+  public void commit(String sessionID, String destination, IntSupplier members, int payloadBytes) {
+    end();
+    if (shouldCommit()) {
+      this.sessionID = sessionID;
+      this.destination = destination;
+      this.members = members.getAsInt();
+      this.payloadBytes = payloadBytes;
+      commit();
+    }
+  }
+}
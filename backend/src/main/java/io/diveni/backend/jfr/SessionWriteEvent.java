@@ -0,0 +1,64 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.jfr;
+
+import java.util.function.IntSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Changes of sessions written to MongoDB. A batch of targeted updates is one event covering
+ * several sessions, its session ID is only set if the batch holds a single session.
+ */
+@Name("io.diveni.SessionWrite")
+@Label("Session Write")
+@Category({"Diveni", "MongoDB"})
+@Description("Session changes written to MongoDB")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SessionWriteEvent extends Event {
+
+  @Label("Session ID")
+  String sessionID;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Sessions")
+  int sessions;
+
+  @Label("Members")
+  int members;
+
+  @Label("Payload Size")
+  @Description("Size of the written BSON, -1 if it could not be determined")
+  @DataAmount
+  int payloadBytes;
+
+  /**
+   * Ends the event and commits the operation, the number of sessions and members it wrote. The
+   * BSON of the written session is only encoded for committed events.
+   */
+  public void commit(
+      String sessionID, String operation, int sessions, int members, IntSupplier payloadBytes) {
+    end();
+    if (shouldCommit()) {
+      this.sessionID = sessionID;
+      this.operation = operation;
+      this.sessions = sessions;
+      this.members = members;
+      this.payloadBytes = payloadBytes.getAsInt();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Result of a voting round: the lowest, highest, median and most frequent card, whether all
+ * estimations agree and whose estimations get highlighted as the lowest and the highest one. "?"
+ * and cards that are not part of the set are not counted.
+ *
+ * <p>Of the members with the lowest or highest card, the one that was not highlighted for the most
+ * rounds gets highlighted, the first of them on a tie. The host is only highlighted if no member
+ * chose the same card.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EstimationStatistics {
+
+  private final int votes;
+
+  private final String lowest;
+
+  private final String highest;
+
+  // the lower one of the two middle cards for an even number of votes
+  private final String median;
+
+  // the lowest one of the most frequent cards
+  private final String mode;
+
+  private final boolean consensus;
+
+  private final String lowestMemberID;
+
+  private final String highestMemberID;
+
+  /**
+   * Computes the statistics in a single pass over the members.
+   *
+   * @param cardOrdinals position of each card in the set, see {@link SessionConfig#getCardOrdinals}
+   * @param memberVoted rounds since each member was highlighted, members missing count as 0
+   * @param hostEstimation estimation of the host or null if the host does not vote
+   */
+  public static EstimationStatistics of(
+      Map<String, Integer> cardOrdinals,
+      List<Member> members,
+      Map<String, Integer> memberVoted,
+      String adminID,
+      String hostEstimation) {
+    int[] counts = new int[cardOrdinals.size()];
+    String[] cards = new String[counts.length];
+    int votes = 0;
+    int lowestOrdinal = Integer.MAX_VALUE;
+    int highestOrdinal = -1;
+    int lowestRounds = -1;
+    int highestRounds = -1;
+    String lowestMemberID = null;
+    String highestMemberID = null;
+
+    for (Member member : members) {
+      Integer ordinal = ordinalOf(cardOrdinals, member.getCurrentEstimation());
+      if (ordinal == null) {
+        continue;
+      }
+      counts[ordinal]++;
+      cards[ordinal] = member.getCurrentEstimation();
+      votes++;
+      int rounds = memberVoted.getOrDefault(member.getMemberID(), 0);
+      if (ordinal < lowestOrdinal || (ordinal == lowestOrdinal && rounds > lowestRounds)) {
+        lowestOrdinal = ordinal;
+        lowestRounds = rounds;
+        lowestMemberID = member.getMemberID();
+      }
+      if (ordinal > highestOrdinal || (ordinal == highestOrdinal && rounds > highestRounds)) {
+        highestOrdinal = ordinal;
+        highestRounds = rounds;
+        highestMemberID = member.getMemberID();
+      }
+    }
+
+    Integer hostOrdinal = ordinalOf(cardOrdinals, hostEstimation);
+    if (hostOrdinal != null) {
+      counts[hostOrdinal]++;
+      cards[hostOrdinal] = hostEstimation;
+      votes++;
+      if (hostOrdinal < lowestOrdinal) {
+        lowestOrdinal = hostOrdinal;
+        lowestMemberID = adminID;
+      }
+      if (hostOrdinal > highestOrdinal) {
+        highestOrdinal = hostOrdinal;
+        highestMemberID = adminID;
+      }
+    }
+
+    if (votes == 0) {
+      return new EstimationStatistics(0, null, null, null, null, false, null, null);
+    }
+    int median = -1;
+    int mode = -1;
+    int counted = 0;
+    for (int ordinal = lowestOrdinal; ordinal <= highestOrdinal; ordinal++) {
+      counted += counts[ordinal];
+      if (median < 0 && 2 * counted >= votes) {
+        median = ordinal;
+      }
+      if (mode < 0 || counts[ordinal] > counts[mode]) {
+        mode = ordinal;
+      }
+    }
+    return new EstimationStatistics(
+        votes,
+        cards[lowestOrdinal],
+        cards[highestOrdinal],
+        cards[median],
+        cards[mode],
+        lowestOrdinal == highestOrdinal,
+        lowestMemberID,
+        highestMemberID);
+  }
+
+  private static Integer ordinalOf(Map<String, Integer> cardOrdinals, String estimation) {
+    return estimation != null ? cardOrdinals.get(estimation) : null;
+  }
+
+  /** Returns the lowest and the highest estimator, nobody if all estimations agree. */
+  public List<String> getHighlightedMemberIDs() {
+    if (votes == 0 || consensus) {
+      return List.of();
+    }
+    return List.of(lowestMemberID, highestMemberID);
+  }
+}
@@ -0,0 +1,35 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of an issue import sent to the admin. While running every update carries the next page
+ * of stories, the last update has the final state and no stories.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class IssueImportUpdate {
+
+  private String projectName;
+
+  private IssueImportState state;
+
+  private List<UserStory> userStories;
+
+  // stories sent so far, including the ones of this update
+  private int imported;
+
+  private int total;
+}
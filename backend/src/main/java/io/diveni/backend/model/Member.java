@@ -5,6 +5,8 @@
 */
 package io.diveni.backend.model;
 
+import org.springframework.data.mongodb.core.index.Indexed;
+
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -16,7 +18,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class Member {
 
-  private String memberID;
+  // sessions are looked up by the members they contain
+  @Indexed private String memberID;
 
   private String name;
 
@@ -7,19 +7,56 @@ package io.diveni.backend.model;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * Change of the member list of a session. Clients apply the updates in the order of their version,
+ * a {@link MemberUpdateType#SNAPSHOT} replaces the whole list and is sent on join or on request
+ * when a client missed a version. Deltas only carry the changed member.
+ */
 @Getter
 @Setter
 @EqualsAndHashCode
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class MemberUpdate {
+  private MemberUpdateType type;
+
+  private Long version;
+
   private List<Member> members;
 
   private List<String> highlightedMembers;
+
+  private Member member;
+
+  private String memberID;
+
+  public static MemberUpdate snapshot(
+      long version, List<Member> members, List<String> highlightedMembers) {
+    return new MemberUpdate(
+        MemberUpdateType.SNAPSHOT, version, members, highlightedMembers, null, null);
+  }
+
+  public static MemberUpdate estimationChanged(long version, Member member) {
+    return new MemberUpdate(
+        MemberUpdateType.ESTIMATION_CHANGED, version, null, null, member, null);
+  }
+
+  /** Several estimations changed within one window, {@code members} only holds those members. */
+  public static MemberUpdate estimationsChanged(long version, List<Member> members) {
+    return new MemberUpdate(
+        MemberUpdateType.ESTIMATIONS_CHANGED, version, members, null, null, null);
+  }
+
+  public static MemberUpdate memberLeft(long version, String memberID) {
+    return new MemberUpdate(MemberUpdateType.MEMBER_LEFT, version, null, null, null, memberID);
+  }
 }
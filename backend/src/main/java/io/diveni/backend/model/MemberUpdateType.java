@@ -0,0 +1,13 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+public enum MemberUpdateType {
+  SNAPSHOT,
+  ESTIMATION_CHANGED,
+  ESTIMATIONS_CHANGED,
+  MEMBER_LEFT,
+}
@@ -0,0 +1,33 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/** A backend node that is alive until its lease expires, see ClusterService. */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@Document("nodes")
+public class NodeLease {
+
+  @Id private final String nodeID;
+
+  // base URL under which clients reach the node directly
+  private final String url;
+
+  // expired leases are removed by MongoDB eventually, the nodes ignore them right away
+  @Indexed(expireAfterSeconds = 0)
+  private final Date expiresAt;
+}
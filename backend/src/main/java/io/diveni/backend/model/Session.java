@@ -5,40 +5,38 @@
 */
 package io.diveni.backend.model;
 
-import java.util.AbstractMap;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.bson.types.ObjectId;
 
 @Getter
-@RequiredArgsConstructor
 @EqualsAndHashCode
 @Document("sessions")
 public class Session {
 
   @Id private final ObjectId databaseID;
 
-  private final String sessionID;
+  @Indexed private final String sessionID;
 
   private final String adminID;
 
@@ -71,28 +69,38 @@ public class Session {
 
   private final AdminVote hostEstimation;
 
-  static Comparator<String> estimationByIndex(List<String> set) {
-    return Comparator.comparingInt((str) -> set.indexOf(str));
-  }
-
-  static Stream<String> getFilteredEstimationStream(List<Member> members) {
-    return members.stream()
-        .map(Member::getCurrentEstimation)
-        .filter((estimation) -> estimation != null && !estimation.equals("?"));
-  }
-
-  public Session updateEstimation(String memberID, String vote) {
-    val updatedMembers =
-        members.stream()
-            .map(m -> m.getMemberID().equals(memberID) ? m.updateEstimation(vote) : m)
-            .collect(Collectors.toList());
-    return new Session(
+  @Version
+  @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+  private final Long version;
+
+  // derived from the members, copies made for votes, joins and leaves update it incrementally
+  @Transient @JsonIgnore @EqualsAndHashCode.Exclude private VoteTally voteTally;
+
+  @PersistenceCreator
+  public Session(
+      ObjectId databaseID,
+      String sessionID,
+      String adminID,
+      SessionConfig sessionConfig,
+      UUID adminCookie,
+      List<Member> members,
+      Map<String, Integer> memberVoted,
+      List<String> currentHighlights,
+      SessionState sessionState,
+      Date lastModified,
+      String accessToken,
+      String timerTimestamp,
+      LocalDate creationTime,
+      boolean hostVoting,
+      AdminVote hostEstimation,
+      Long version) {
+    this(
         databaseID,
         sessionID,
         adminID,
         sessionConfig,
         adminCookie,
-        updatedMembers,
+        members,
         memberVoted,
         currentHighlights,
         sessionState,
@@ -101,392 +109,146 @@ public class Session {
         timerTimestamp,
         creationTime,
         hostVoting,
-        hostEstimation);
+        hostEstimation,
+        version,
+        null);
   }
 
-  public Session selectHighlightedMembers() {
-    for (Member member : this.members) {
-      memberVoted.putIfAbsent(member.getMemberID(), 0);
-    }
+  @Builder(toBuilder = true)
+  private Session(
+      ObjectId databaseID,
+      String sessionID,
+      String adminID,
+      SessionConfig sessionConfig,
+      UUID adminCookie,
+      List<Member> members,
+      Map<String, Integer> memberVoted,
+      List<String> currentHighlights,
+      SessionState sessionState,
+      Date lastModified,
+      String accessToken,
+      String timerTimestamp,
+      LocalDate creationTime,
+      boolean hostVoting,
+      AdminVote hostEstimation,
+      Long version,
+      VoteTally voteTally) {
+    this.databaseID = databaseID;
+    this.sessionID = sessionID;
+    this.adminID = adminID;
+    this.sessionConfig = sessionConfig;
+    this.adminCookie = adminCookie;
+    this.members = members;
+    this.memberVoted = memberVoted;
+    this.currentHighlights = currentHighlights;
+    this.sessionState = sessionState;
+    this.lastModified = lastModified;
+    this.accessToken = accessToken;
+    this.timerTimestamp = timerTimestamp;
+    this.creationTime = creationTime;
+    this.hostVoting = hostVoting;
+    this.hostEstimation = hostEstimation;
+    this.version = version;
+    this.voteTally = voteTally;
+  }
 
-    val filteredSet =
-        sessionConfig.getSet().stream()
-            .filter((string) -> !string.equals("?"))
-            .collect(Collectors.toList());
-
-    Optional<String> maxEstimation;
-    Optional<String> minEstimation;
-    if (!this.hostVoting || this.hostEstimation.getHostEstimation().equals("")) {
-      maxEstimation = getFilteredEstimationStream(this.members).max(estimationByIndex(filteredSet));
-    } else {
-      Stream<String> filteredEstimationsMember = getFilteredEstimationStream(this.members);
-      Stream<String> allEstimations =
-          Stream.concat(
-              filteredEstimationsMember, Stream.of(this.hostEstimation.getHostEstimation()));
-      maxEstimation = allEstimations.max(estimationByIndex(filteredSet));
-    }
-    if (!this.hostVoting || this.hostEstimation.getHostEstimation().equals("")) {
-      minEstimation = getFilteredEstimationStream(this.members).min(estimationByIndex(filteredSet));
-    } else {
-      Stream<String> filteredEstimationsMember = getFilteredEstimationStream(this.members);
-      Stream<String> allEstimations =
-          Stream.concat(
-              filteredEstimationsMember, Stream.of(this.hostEstimation.getHostEstimation()));
-      minEstimation = allEstimations.min(estimationByIndex(filteredSet));
+  /** Returns the tally of the current round, counted from the members if this copy has none. */
+  public VoteTally getVoteTally() {
+    if (voteTally == null) {
+      voteTally = VoteTally.of(members);
     }
+    return voteTally;
+  }
 
-    if (maxEstimation.equals(minEstimation)) {
-      return new Session(
-          databaseID,
-          sessionID,
-          adminID,
-          sessionConfig,
-          adminCookie,
-          members,
-          memberVoted,
-          new ArrayList<>(),
-          sessionState,
-          lastModified,
-          accessToken,
-          timerTimestamp,
-          creationTime,
-          hostVoting,
-          hostEstimation);
-    }
-    val maxEstimationMembers =
-        this.members.stream()
-            .filter(
-                (member) ->
-                    member.getCurrentEstimation() != null
-                        && member.getCurrentEstimation().equals(maxEstimation.get()))
-            .collect(Collectors.toList());
-
-    List<Entry<String, Integer>> maxOptions =
-        memberVoted.entrySet().stream()
-            .filter(
-                (entry) ->
-                    maxEstimationMembers.stream()
-                        .anyMatch((member) -> member.getMemberID().equals(entry.getKey())))
-            .collect(Collectors.toList());
-
-    if (hostVoting == true) {
-      if (maxEstimation.get().equals(this.hostEstimation.getHostEstimation())) {
-        maxOptions.add(new AbstractMap.SimpleEntry<String, Integer>(this.adminID, 0));
-      }
+  public Session updateEstimation(String memberID, String vote) {
+    return toBuilder().updateEstimation(memberID, vote).build();
+  }
+
+  public Session selectHighlightedMembers() {
+    val statistics =
+        EstimationStatistics.of(
+            sessionConfig.getCardOrdinals(),
+            members,
+            memberVoted,
+            adminID,
+            hostVoting && hostEstimation != null ? hostEstimation.getHostEstimation() : null);
+    val newHighlighted = statistics.getHighlightedMemberIDs();
+    if (newHighlighted.isEmpty()) {
+      return resetCurrentHighlights();
     }
 
-    val maxMemberID =
-        Collections.max(maxOptions, Comparator.comparingInt(Map.Entry::getValue)).getKey();
-
-    val minEstimationMembers =
-        this.members.stream()
-            .filter(
-                (member) ->
-                    member.getCurrentEstimation() != null
-                        && member.getCurrentEstimation().equals(minEstimation.get()))
-            .collect(Collectors.toList());
-
-    List<Entry<String, Integer>> minOptions =
-        memberVoted.entrySet().stream()
-            .filter(
-                (entry) ->
-                    minEstimationMembers.stream()
-                        .anyMatch((member) -> member.getMemberID().equals(entry.getKey())))
-            .collect(Collectors.toList());
-
-    if (hostVoting == true) {
-      if (minEstimation.get().equals(this.hostEstimation.getHostEstimation())) {
-        minOptions.add(new AbstractMap.SimpleEntry<String, Integer>(this.adminID, 0));
+    // members count the rounds since they were highlighted, the highlighted ones start over
+    val newVoted = new HashMap<String, Integer>();
+    memberVoted.forEach(
+        (memberID, rounds) ->
+            newVoted.put(memberID, newHighlighted.contains(memberID) ? 0 : rounds + 1));
+    val sortedMembers = new ArrayList<Member>(members.size());
+    val otherMembers = new ArrayList<Member>(members.size());
+    for (Member member : members) {
+      boolean highlighted = newHighlighted.contains(member.getMemberID());
+      newVoted.putIfAbsent(member.getMemberID(), highlighted ? 0 : 1);
+      if (highlighted) {
+        sortedMembers.add(member);
+      } else {
+        otherMembers.add(member);
       }
     }
-
-    val minMemberID =
-        Collections.max(minOptions, Comparator.comparingInt(Map.Entry::getValue)).getKey();
-
-    val newVoted =
-        memberVoted.entrySet().stream()
-            .map(
-                (entry) -> {
-                  if (entry.getKey().equals(maxMemberID) || entry.getKey().equals(minMemberID)) {
-                    return Map.entry(entry.getKey(), 0);
-                  } else {
-                    return Map.entry(entry.getKey(), entry.getValue() + 1);
-                  }
-                })
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    val newHighlighted = List.of(minMemberID, maxMemberID);
-
-    val sortedMembers =
-        members.stream()
-            .sorted(
-                (Member m1, Member m2) -> {
-                  boolean b1 = newHighlighted.contains(m1.getMemberID());
-                  boolean b2 = newHighlighted.contains(m2.getMemberID());
-                  if (b1 == b2) {
-                    return 0;
-                  }
-                  return b1 ? -1 : 1;
-                })
-            .collect(Collectors.toList());
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        sortedMembers,
-        newVoted,
-        newHighlighted,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    sortedMembers.addAll(otherMembers);
+    // the same members in another order, the tally stays valid
+    return toBuilder()
+        .members(sortedMembers)
+        .voteTally(voteTally)
+        .memberVoted(newVoted)
+        .currentHighlights(newHighlighted)
+        .build();
   }
 
   public Session resetCurrentHighlights() {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        new ArrayList<>(),
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().currentHighlights(new ArrayList<>()).build();
   }
 
   public Session updateUserStories(List<UserStory> userStories) {
-    val updatedSessionConfig =
-        new SessionConfig(
-            sessionConfig.getSet(),
-            userStories,
-            sessionConfig.getTimerSeconds().orElse(null),
-            sessionConfig.getUserStoryMode(),
-            sessionConfig.getPassword());
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        updatedSessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().updateUserStories(userStories).build();
   }
 
   public Session resetEstimations() {
-    val updatedMembers =
-        members.stream().map(m -> m.resetEstimation()).collect(Collectors.toList());
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        updatedMembers,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        new AdminVote(""));
+    return toBuilder().resetEstimations().build();
   }
 
   public Session updateMembers(List<Member> updatedMembers) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        updatedMembers,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().members(updatedMembers).build();
   }
 
   public Session updateSessionState(SessionState updatedSessionState) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        updatedSessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().sessionState(updatedSessionState).build();
   }
 
   public Session addMember(Member member) {
-    var updatedMembers = new ArrayList<>(members);
-    updatedMembers.add(member);
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        updatedMembers,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().addMember(member).build();
   }
 
   public Session removeMember(String memberID) {
-    val updatedMembers =
-        members.stream()
-            .filter(m -> !m.getMemberID().equals(memberID))
-            .collect(Collectors.toList());
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        updatedMembers,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().removeMember(memberID).build();
   }
 
   public Session setTimerTimestamp(String timestamp) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().timerTimestamp(timestamp).build();
   }
 
   public Session resetTimerTimestamp() {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        null,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().timerTimestamp(null).build();
   }
 
   public Session setLastModified(Date lastModified) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().lastModified(lastModified).build();
   }
 
   public Session setAccessToken(String token) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        token,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        hostEstimation);
+    return toBuilder().accessToken(token).build();
   }
 
   public Session setHostVoting(boolean isHostVoting) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        isHostVoting,
-        hostEstimation);
+    return toBuilder().hostVoting(isHostVoting).build();
   }
 
   public boolean getHostVoting() {
@@ -494,21 +256,94 @@ public class Session {
   }
 
   public Session setHostEstimation(String vote) {
-    return new Session(
-        databaseID,
-        sessionID,
-        adminID,
-        sessionConfig,
-        adminCookie,
-        members,
-        memberVoted,
-        currentHighlights,
-        sessionState,
-        lastModified,
-        accessToken,
-        timerTimestamp,
-        creationTime,
-        hostVoting,
-        new AdminVote(vote));
+    return toBuilder().hostEstimation(new AdminVote(vote)).build();
+  }
+
+  public Session withVersion(Long version) {
+    return toBuilder().version(version).build();
+  }
+
+  /**
+   * Collects several changes of a session so they produce a single copy, see {@link
+   * Session#toBuilder}. Member changes keep the vote tally up to date.
+   */
+  public static class SessionBuilder {
+
+    /** Replaces the members, the vote tally is counted again when it is needed. */
+    public SessionBuilder members(List<Member> members) {
+      this.members = members;
+      this.voteTally = null;
+      return this;
+    }
+
+    private SessionBuilder voteTally(VoteTally voteTally) {
+      this.voteTally = voteTally;
+      return this;
+    }
+
+    private VoteTally tally() {
+      if (voteTally == null) {
+        voteTally = VoteTally.of(members);
+      }
+      return voteTally;
+    }
+
+    public SessionBuilder updateEstimation(String memberID, String vote) {
+      for (int i = 0; i < members.size(); i++) {
+        Member member = members.get(i);
+        if (member.getMemberID().equals(memberID)) {
+          val updatedTally = tally().withVote(member.getCurrentEstimation(), vote);
+          val updatedMembers = new ArrayList<>(members);
+          updatedMembers.set(i, member.updateEstimation(vote));
+          return members(updatedMembers).voteTally(updatedTally);
+        }
+      }
+      return this;
+    }
+
+    public SessionBuilder updateUserStories(List<UserStory> userStories) {
+      return sessionConfig(
+          new SessionConfig(
+              sessionConfig.getSet(),
+              userStories,
+              sessionConfig.getTimerSeconds().orElse(null),
+              sessionConfig.getUserStoryMode(),
+              sessionConfig.getPassword()));
+    }
+
+    public SessionBuilder resetEstimations() {
+      hostEstimation(new AdminVote(""));
+      if (tally().getVoted() == 0) {
+        return this;
+      }
+      val updatedMembers = new ArrayList<Member>(members.size());
+      for (Member member : members) {
+        // members without an estimation are shared with the previous state
+        updatedMembers.add(
+            member.getCurrentEstimation() != null ? member.resetEstimation() : member);
+      }
+      return members(updatedMembers).voteTally(new VoteTally(updatedMembers.size()));
+    }
+
+    public SessionBuilder addMember(Member member) {
+      val updatedTally = tally().withMemberAdded(member.getCurrentEstimation());
+      val updatedMembers = new ArrayList<Member>(members.size() + 1);
+      updatedMembers.addAll(members);
+      updatedMembers.add(member);
+      return members(updatedMembers).voteTally(updatedTally);
+    }
+
+    public SessionBuilder removeMember(String memberID) {
+      var updatedTally = tally();
+      val updatedMembers = new ArrayList<Member>(members.size());
+      for (Member member : members) {
+        if (member.getMemberID().equals(memberID)) {
+          updatedTally = updatedTally.withMemberRemoved(member.getCurrentEstimation());
+        } else {
+          updatedMembers.add(member);
+        }
+      }
+      return members(updatedMembers).voteTally(updatedTally);
+    }
   }
 }
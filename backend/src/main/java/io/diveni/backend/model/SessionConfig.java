@@ -5,10 +5,15 @@
 */
 package io.diveni.backend.model;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Transient;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -27,7 +32,23 @@ public class SessionConfig {
   @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
   private final String password;
 
+  @Transient @JsonIgnore private Map<String, Integer> cardOrdinals;
+
   public Optional<Integer> getTimerSeconds() {
-    return Optional.of(timerSeconds);
+    return Optional.ofNullable(timerSeconds);
+  }
+
+  /** Returns the position of every card of the set that can be compared, all but "?". */
+  public Map<String, Integer> getCardOrdinals() {
+    if (cardOrdinals == null) {
+      Map<String, Integer> ordinals = new HashMap<>();
+      for (String card : set) {
+        if (!card.equals("?")) {
+          ordinals.putIfAbsent(card, ordinals.size());
+        }
+      }
+      cardOrdinals = Collections.unmodifiableMap(ordinals);
+    }
+    return cardOrdinals;
   }
 }
@@ -0,0 +1,28 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Start of the voting timer of a session. The server time lets clients move the start onto their
+ * own clock and count down locally, so they do not have to ask the server for the remaining time.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimerState {
+
+  // epoch milliseconds
+  private long startedAt;
+
+  // epoch milliseconds on the server when the state was sent
+  private long serverTime;
+}
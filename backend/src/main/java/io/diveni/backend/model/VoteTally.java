@@ -0,0 +1,88 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Counts the members of a session that voted and how often each card was chosen in the current
+ * round. A session keeps its tally up to date when votes are cast, members join or leave and
+ * estimations are reset, so checking whether everybody voted does not look at every member.
+ * Instances are immutable.
+ */
+@Getter
+@EqualsAndHashCode
+public final class VoteTally {
+
+  private final int members;
+
+  private final int voted;
+
+  // card -> number of members that chose it
+  private final Map<String, Integer> histogram;
+
+  private VoteTally(int members, int voted, Map<String, Integer> histogram) {
+    this.members = members;
+    this.voted = voted;
+    this.histogram = Collections.unmodifiableMap(histogram);
+  }
+
+  /** Tally of a round without any votes. */
+  public VoteTally(int members) {
+    this(members, 0, new HashMap<>());
+  }
+
+  public static VoteTally of(List<Member> members) {
+    int voted = 0;
+    Map<String, Integer> histogram = new HashMap<>();
+    for (Member member : members) {
+      if (member.getCurrentEstimation() != null) {
+        voted++;
+        histogram.merge(member.getCurrentEstimation(), 1, Integer::sum);
+      }
+    }
+    return new VoteTally(members.size(), voted, histogram);
+  }
+
+  public int getOutstanding() {
+    return members - voted;
+  }
+
+  public boolean allVoted() {
+    return voted == members;
+  }
+
+  public VoteTally withVote(String previous, String estimation) {
+    if (previous == null ? estimation == null : previous.equals(estimation)) {
+      return this;
+    }
+    Map<String, Integer> updated = new HashMap<>(histogram);
+    int updatedVoted = voted;
+    if (previous != null) {
+      updated.computeIfPresent(previous, (card, count) -> count > 1 ? count - 1 : null);
+      updatedVoted--;
+    }
+    if (estimation != null) {
+      updated.merge(estimation, 1, Integer::sum);
+      updatedVoted++;
+    }
+    return new VoteTally(members, updatedVoted, updated);
+  }
+
+  public VoteTally withMemberAdded(String estimation) {
+    return new VoteTally(members + 1, voted, histogram).withVote(null, estimation);
+  }
+
+  public VoteTally withMemberRemoved(String estimation) {
+    return new VoteTally(members - 1, voted, histogram).withVote(estimation, null);
+  }
+}
@@ -5,8 +5,12 @@
 */
 package io.diveni.backend.principals;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.diveni.backend.model.Member;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -22,7 +26,15 @@ public class SessionPrincipals {
 
   private String sessionID;
 
-  private AdminPrincipal adminPrincipal;
+  private volatile AdminPrincipal adminPrincipal;
 
+  // concurrent set, members join and leave without locking the session
   private Set<MemberPrincipal> memberPrincipals;
+
+  // version of the last member update sent to the session
+  @EqualsAndHashCode.Exclude private final AtomicLong memberUpdateVersion = new AtomicLong();
+
+  // estimations waiting for the end of the update window, guarded by this object
+  @EqualsAndHashCode.Exclude
+  private final Map<String, Member> pendingEstimations = new LinkedHashMap<>();
 }
@@ -0,0 +1,17 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import io.diveni.backend.model.NodeLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface NodeLeaseRepository extends MongoRepository<NodeLease, String> {
+
+  List<NodeLease> findByExpiresAtAfter(Date date);
+}
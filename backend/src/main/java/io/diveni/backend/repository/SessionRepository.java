@@ -17,9 +17,13 @@ public interface SessionRepository extends MongoRepository<Session, String> {
 
   Session findByAdminCookie(UUID adminCookie);
 
-  default Optional<Session> findByMemberID(String memberID) {
-    return findAll().stream()
-        .filter(s -> s.getMembers().stream().anyMatch(m -> m.getMemberID().equals(memberID)))
-        .findFirst();
-  }
+  @Query("{ 'members.memberID' : ?0 }")
+  Optional<Session> findByMemberID(String memberID);
+
+  /** Same lookup as {@link #findByMemberID} but leaves out the (potentially large) backlog. */
+  @Query(value = "{ 'members.memberID' : ?0 }", fields = "{ 'sessionConfig.userStories' : 0 }")
+  Optional<Session> findWithoutUserStoriesByMemberID(String memberID);
+
+  @Query(value = "{ 'members.memberID' : ?0 }", exists = true)
+  boolean existsByMemberID(String memberID);
 }
@@ -10,16 +10,26 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import io.diveni.backend.controller.ErrorMessages;
+import io.diveni.backend.model.AdminVote;
+import io.diveni.backend.model.Member;
 import io.diveni.backend.model.Session;
 import io.diveni.backend.model.Statistic;
 
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import io.diveni.backend.repository.SessionRepository;
 import io.diveni.backend.repository.StatisticRepository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,51 +43,183 @@ public class DatabaseService {
   //Variable can be further extracted
   private final String statEntryIdentifier = "STAT_V1";
 
-  @Autowired SessionRepository sessionRepo;
+  private static final int MAX_UPDATE_ATTEMPTS = 10;
+
+  @Autowired SessionStore sessionStore;
 
   @Autowired StatisticRepository statisticRepo;
 
+  @Autowired DiveniMetrics metrics;
 
   public Optional<Session> getSessionByID(String sessionID) {
     LOGGER.debug("getSessionByID()");
-    return Optional.ofNullable(sessionRepo.findBySessionID(sessionID));
+    return metrics.timeDatabase("getSessionByID", () -> sessionStore.findBySessionID(sessionID));
   }
 
   public Optional<Session> getSessionByAdminCookie(UUID adminCookie) {
     LOGGER.debug("getSessionByAdminCookie()");
-    return Optional.ofNullable(sessionRepo.findByAdminCookie(adminCookie));
+    return metrics.timeDatabase(
+        "getSessionByAdminCookie", () -> sessionStore.findByAdminCookie(adminCookie));
   }
 
   public Optional<Session> getSessionByMemberID(String memberID) {
     LOGGER.debug("getSessionByMemberID()");
-    return sessionRepo.findByMemberID(memberID);
+    return metrics.timeDatabase(
+        "getSessionByMemberID", () -> sessionStore.findByMemberID(memberID));
+  }
+
+  public Optional<Session> getSessionWithoutUserStoriesByMemberID(String memberID) {
+    LOGGER.debug("getSessionWithoutUserStoriesByMemberID()");
+    return metrics.timeDatabase(
+        "getSessionWithoutUserStoriesByMemberID",
+        () -> sessionStore.findWithoutUserStoriesByMemberID(memberID));
+  }
+
+  public boolean existsSessionByMemberID(String memberID) {
+    LOGGER.debug("existsSessionByMemberID()");
+    return metrics.timeDatabase(
+        "existsSessionByMemberID", () -> sessionStore.existsByMemberID(memberID));
   }
 
   public List<Session> getSessions() {
     LOGGER.debug("getSessions()");
-    return sessionRepo.findAll();
+    return metrics.timeDatabase("getSessions", () -> sessionStore.findAll());
   }
 
   public Session saveSession(Session session) {
     LOGGER.debug("saveSession()");
-    return sessionRepo.save(session.setLastModified(new Date()));
+    return metrics.timeDatabase(
+        "saveSession", () -> sessionStore.save(session.setLastModified(new Date())));
+  }
+
+  /**
+   * Applies the mutation to the current state of the session. If the session is changed
+   * concurrently the mutation is applied again to the new state. The mutation returns a builder,
+   * so all of its changes and the new modification date end up in a single copy.
+   */
+  public Session updateSession(
+      String sessionID, Function<Session, Session.SessionBuilder> mutation) {
+    LOGGER.debug("updateSession()");
+    return retryOnConflict(
+        "updateSession",
+        () -> {
+          Session current = getSessionOrThrow(sessionID);
+          return sessionStore.replace(
+              current, mutation.apply(current).lastModified(new Date()).build());
+        });
+  }
+
+  public Session updateEstimation(String memberID, String vote) {
+    LOGGER.debug("updateEstimation()");
+    return retryOnConflict(
+        "updateEstimation",
+        () -> {
+          // the vote only touches the member, the backlog is not loaded for it
+          Session current =
+              getSessionWithoutUserStoriesByMemberID(memberID)
+                  .orElseThrow(
+                      () ->
+                          new ResponseStatusException(
+                              HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
+          Date lastModified = new Date();
+          return sessionStore.update(
+              current,
+              current
+                  .toBuilder()
+                  .updateEstimation(memberID, vote)
+                  .lastModified(lastModified)
+                  .build(),
+              Query.query(
+                  Criteria.where("sessionID")
+                      .is(current.getSessionID())
+                      .and("members.memberID")
+                      .is(memberID)),
+              new Update()
+                  .set("members.$.currentEstimation", vote)
+                  .set("lastModified", lastModified));
+        });
+  }
+
+  public Session addMember(String sessionID, Member member) {
+    LOGGER.debug("addMember()");
+    return retryOnConflict(
+        "addMember",
+        () -> {
+          Session current = getSessionOrThrow(sessionID);
+          if (current.getMembers().stream()
+              .anyMatch(m -> m.getMemberID().equals(member.getMemberID()))) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, ErrorMessages.memberExistsErrorMessage);
+          }
+          Date lastModified = new Date();
+          return sessionStore.update(
+              current,
+              current.toBuilder().addMember(member).lastModified(lastModified).build(),
+              sessionQuery(sessionID),
+              new Update().push("members", member).set("lastModified", lastModified));
+        });
+  }
+
+  public Session removeMember(String sessionID, String memberID) {
+    LOGGER.debug("removeMember()");
+    return retryOnConflict(
+        "removeMember",
+        () -> {
+          Session current = getSessionOrThrow(sessionID);
+          Date lastModified = new Date();
+          return sessionStore.update(
+              current,
+              current.toBuilder().removeMember(memberID).lastModified(lastModified).build(),
+              sessionQuery(sessionID),
+              new Update()
+                  .pull("members", new Document("memberID", memberID))
+                  .set("lastModified", lastModified));
+        });
+  }
+
+  public Session setHostEstimation(String sessionID, String vote) {
+    LOGGER.debug("setHostEstimation()");
+    return retryOnConflict(
+        "setHostEstimation",
+        () -> {
+          Session current = getSessionOrThrow(sessionID);
+          Date lastModified = new Date();
+          return sessionStore.update(
+              current,
+              current.toBuilder()
+                  .hostEstimation(new AdminVote(vote))
+                  .lastModified(lastModified)
+                  .build(),
+              sessionQuery(sessionID),
+              new Update()
+                  .set("hostEstimation", new AdminVote(vote))
+                  .set("lastModified", lastModified));
+        });
   }
 
   @Transactional
   public void deleteSession(Session session) {
     LOGGER.debug("--> deleteSession()");
-    Statistic statistic = getOrCreateStatistic();
-    statistic.incrementOverallSessions().addOverallAttendees(session.getMembers().size());
-    statisticRepo.save(statistic);
-    sessionRepo.delete(session);
+    metrics.timeDatabase(
+        "deleteSession",
+        () -> {
+          Statistic statistic = getOrCreateStatistic();
+          statistic.incrementOverallSessions().addOverallAttendees(session.getMembers().size());
+          statisticRepo.save(statistic);
+          sessionStore.delete(session);
+        });
     LOGGER.debug("<-- deleteSession()");
   }
 
   public void addRemovedMember()  {
     LOGGER.debug("--> addRemovedMember()");
-    Statistic statistic = getOrCreateStatistic();
-    statistic.incrementOverallAttendees();
-    statisticRepo.save(statistic);
+    metrics.timeDatabase(
+        "addRemovedMember",
+        () -> {
+          Statistic statistic = getOrCreateStatistic();
+          statistic.incrementOverallAttendees();
+          statisticRepo.save(statistic);
+        });
     LOGGER.debug("<-- addRemovedMember()");
   }
 
@@ -95,6 +237,36 @@ public class DatabaseService {
       .orElse(0);
   }
 
+  private Session getSessionOrThrow(String sessionID) {
+    return getSessionByID(sessionID)
+        .orElseThrow(
+            () ->
+                new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
+  }
+
+  private Session retryOnConflict(String operation, Supplier<Session> attempt) {
+    return metrics.timeDatabase(
+        operation,
+        () -> {
+          for (int i = 0; i < MAX_UPDATE_ATTEMPTS; i++) {
+            Session updated = attempt.get();
+            if (updated != null) {
+              return updated;
+            }
+            metrics.countConflict(operation);
+            LOGGER.debug("retryOnConflict() session was changed concurrently, retrying");
+          }
+          LOGGER.warn("retryOnConflict() giving up after {} attempts", MAX_UPDATE_ATTEMPTS);
+          throw new ResponseStatusException(
+              HttpStatus.CONFLICT, ErrorMessages.concurrentUpdateErrorMessage);
+        });
+  }
+
+  private static Query sessionQuery(String sessionID) {
+    return Query.query(Criteria.where("sessionID").is(sessionID));
+  }
+
   private Statistic getOrCreateStatistic() {
     LOGGER.debug("getOrCreateStatistic()");
     return statisticRepo.findById(statEntryIdentifier)
@@ -0,0 +1,110 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers and counters of the hot paths, exported on {@code /actuator/prometheus}. Handler, database
+ * and fanout latencies are kept apart so a slow round can be attributed to MongoDB, the handlers
+ * or the broker. The gauges of live sessions and queue depths are registered in {@link
+ * io.diveni.backend.config.MetricsConfig}.
+ */
+@Component
+public class DiveniMetrics {
+
+  public static final String HANDLER_TIMER = "diveni.websocket.handler";
+
+  public static final String DATABASE_TIMER = "diveni.database.operation";
+
+  public static final String DATABASE_CONFLICTS = "diveni.database.conflicts";
+
+  public static final String FLUSH_TIMER = "diveni.database.flush";
+
+  public static final String FANOUT_TIMER = "diveni.websocket.fanout";
+
+  public static final String FANOUT_RECIPIENTS = "diveni.websocket.fanout.recipients";
+
+  private final MeterRegistry registry;
+
+  public DiveniMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  public MeterRegistry getRegistry() {
+    return registry;
+  }
+
+  /** Records how long the {@code @MessageMapping} handler of the destination took. */
+  public void recordHandler(String destination, Throwable error, long nanos) {
+    Timer.builder(HANDLER_TIMER)
+        .description("Duration of the STOMP message handlers")
+        .tag("destination", destination)
+        .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public <T> T timeDatabase(String operation, Supplier<T> call) {
+    return databaseTimer(operation).record(call);
+  }
+
+  public void timeDatabase(String operation, Runnable call) {
+    databaseTimer(operation).record(call);
+  }
+
+  /** Counts an update that has to be applied again because the session changed concurrently. */
+  public void countConflict(String operation) {
+    Counter.builder(DATABASE_CONFLICTS)
+        .description("Session updates retried after a concurrent change")
+        .tag("operation", operation)
+        .register(registry)
+        .increment();
+  }
+
+  /** Records a write-behind flush of the queued session changes to MongoDB. */
+  public void recordFlush(int sessions, long nanos) {
+    Timer.builder(FLUSH_TIMER)
+        .description("Duration of writing the queued session changes to MongoDB")
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder(FLUSH_TIMER + ".sessions")
+        .description("Sessions written per flush")
+        .register(registry)
+        .record(sessions);
+  }
+
+  /**
+   * Records a broadcast to a session, the recipients are the principals of the session connected
+   * to this node.
+   */
+  public void recordFanout(String destination, int recipients, long nanos) {
+    Timer.builder(FANOUT_TIMER)
+        .description("Duration of handing a broadcast of a session to the broker")
+        .tag("destination", destination)
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder(FANOUT_RECIPIENTS)
+        .description("Recipients of a broadcast of a session")
+        .tag("destination", destination)
+        .register(registry)
+        .record(recipients);
+  }
+
+  private Timer databaseTimer(String operation) {
+    return Timer.builder(DATABASE_TIMER)
+        .description("Duration of the session and statistic operations of the database service")
+        .tag("operation", operation)
+        .register(registry);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import io.diveni.backend.model.IssueImportState;
+import io.diveni.backend.model.IssueImportUpdate;
+import io.diveni.backend.model.UserStory;
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.service.projectmanagementproviders.IssueImport;
+import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProvider;
+import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import lombok.val;
+
+/**
+ * Imports the issues of a project for the admin of a session in the background. The stories are
+ * sent to the admin page by page while the import runs, so the first ones show up after a single
+ * request to the issue tracker. A session has at most one import, starting another one cancels
+ * the running one.
+ */
+@Service
+public class IssueImportService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IssueImportService.class);
+
+  @Autowired private ProjectManagementProviders projectManagementProviders;
+
+  @Autowired private WebSocketService webSocketService;
+
+  @Autowired
+  @Qualifier("issueImportJobExecutor")
+  private Executor issueImportJobExecutor;
+
+  // running import per session
+  private final Map<String, ImportJob> imports = new ConcurrentHashMap<>();
+
+  public void startImport(AdminPrincipal admin, String tokenIdentifier, String projectName) {
+    LOGGER.debug(
+        "--> startImport(), sessionID={}, projectName={}", admin.getSessionID(), projectName);
+    ImportJob job = new ImportJob(admin, projectName);
+    ImportJob previous = imports.put(admin.getSessionID(), job);
+    if (previous != null) {
+      // the admin gets the stories of the new import instead
+      previous.cancel(false);
+    }
+    val provider = projectManagementProviders.getProvider(tokenIdentifier);
+    if (provider == null || !provider.serviceEnabled()) {
+      LOGGER.warn("No enabled issue tracker for the token!");
+      imports.remove(admin.getSessionID(), job);
+      job.finish(IssueImportState.FAILED);
+    } else {
+      issueImportJobExecutor.execute(() -> runImport(job, provider, tokenIdentifier));
+    }
+    LOGGER.debug("<-- startImport()");
+  }
+
+  public void cancelImport(String sessionID) {
+    LOGGER.debug("--> cancelImport(), sessionID={}", sessionID);
+    ImportJob job = imports.remove(sessionID);
+    if (job != null) {
+      job.cancel(true);
+    }
+    LOGGER.debug("<-- cancelImport()");
+  }
+
+  private void runImport(
+      ImportJob job, ProjectManagementProvider provider, String tokenIdentifier) {
+    try {
+      provider.importIssues(tokenIdentifier, job.projectName, job);
+      job.finish(IssueImportState.DONE);
+    } catch (Exception e) {
+      // the provider logged the cause already
+      job.finish(IssueImportState.FAILED);
+    } finally {
+      imports.remove(job.admin.getSessionID(), job);
+    }
+  }
+
+  /**
+   * Sends the pages of an import to the admin. Once cancelled or finished nothing is sent anymore,
+   * the updates are sent under the lock of the job, so no page can follow the last update.
+   */
+  private final class ImportJob implements IssueImport.Listener {
+
+    private final AdminPrincipal admin;
+
+    private final String projectName;
+
+    private int imported;
+
+    private int total;
+
+    private boolean closed;
+
+    ImportJob(AdminPrincipal admin, String projectName) {
+      this.admin = admin;
+      this.projectName = projectName;
+    }
+
+    @Override
+    public synchronized void onPage(List<UserStory> issues, int total) {
+      if (closed) {
+        return;
+      }
+      this.imported += issues.size();
+      this.total = total;
+      send(IssueImportState.RUNNING, issues);
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+      return closed;
+    }
+
+    synchronized void cancel(boolean notify) {
+      if (!closed) {
+        closed = true;
+        if (notify) {
+          send(IssueImportState.CANCELLED, List.of());
+        }
+      }
+    }
+
+    synchronized void finish(IssueImportState state) {
+      if (!closed) {
+        closed = true;
+        send(state, List.of());
+      }
+    }
+
+    private void send(IssueImportState state, List<UserStory> issues) {
+      webSocketService.sendIssueImportUpdate(
+          admin, new IssueImportUpdate(projectName, state, issues, imported, total));
+    }
+  }
+}
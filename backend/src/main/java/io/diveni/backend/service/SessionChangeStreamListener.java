@@ -0,0 +1,211 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.principals.SessionPrincipals;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lets several backend nodes serve the same session without a broker in between. Every node
+ * follows the change stream of the sessions collection and forwards changes that other nodes
+ * stored to the users of the session that are connected to it. Changes the node wrote itself were
+ * already sent when they were made and are skipped.
+ *
+ * <p>Most changes replace the whole document, so the node compares the stored session with the
+ * last one it saw and only sends the parts that changed. Broadcasts run in the mailbox of the
+ * session and stay in order with the messages handled locally. Change streams need MongoDB to
+ * run as a replica set, a single node one is enough (see docker-compose.replica-set.yml).
+ */
+@Component
+public class SessionChangeStreamListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionChangeStreamListener.class);
+
+  private static final String COLLECTION = "sessions";
+
+  @Value("${SESSIONS_CHANGE_STREAM:false}")
+  private boolean CHANGE_STREAM = false;
+
+  @Value("${SESSIONS_WRITE_BEHIND:true}")
+  private boolean SESSIONS_WRITE_BEHIND = true;
+
+  @Autowired private MongoTemplate mongoTemplate;
+
+  @Autowired private SessionStore sessionStore;
+
+  @Autowired private WebSocketService webSocketService;
+
+  @Autowired private SessionMailboxExecutor sessionMailboxExecutor;
+
+  // last stored state per live session, the next change is compared against it
+  private final Map<String, Session> lastSeen = new ConcurrentHashMap<>();
+
+  private MessageListenerContainer container;
+
+  @PostConstruct
+  public void start() {
+    if (!CHANGE_STREAM) {
+      return;
+    }
+    if (SESSIONS_WRITE_BEHIND) {
+      // each node would keep its own copy of the sessions
+      throw new IllegalStateException(
+          "SESSIONS_CHANGE_STREAM=true requires SESSIONS_WRITE_BEHIND=false");
+    }
+    LOGGER.info("--> start()");
+    container = new DefaultMessageListenerContainer(mongoTemplate);
+    container.register(
+        ChangeStreamRequest.<Session>builder(this::onChange)
+            .collection(COLLECTION)
+            .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+            .build(),
+        Session.class,
+        e -> LOGGER.error("start() change stream of {} failed", COLLECTION, e));
+    container.start();
+    LOGGER.info("<-- start()");
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (container != null) {
+      container.stop();
+    }
+  }
+
+  void onChange(Message<ChangeStreamDocument<Document>, Session> message) {
+    ChangeStreamDocument<Document> change = message.getRaw();
+    if (change == null || change.getOperationType() == null) {
+      return;
+    }
+    switch (change.getOperationType()) {
+      case UPDATE:
+      case REPLACE:
+        onSessionChanged(message.getBody());
+        break;
+      case DELETE:
+        // the event only carries the database id, so look for live sessions that are gone
+        onSessionsDeleted();
+        break;
+      default:
+        // new sessions have nobody connected yet, other operations do not concern single sessions
+        break;
+    }
+  }
+
+  private void onSessionChanged(Session stored) {
+    if (stored == null) { // deleted before the change could be looked up
+      return;
+    }
+    String sessionID = stored.getSessionID();
+    // consumed for every change, so the store can forget the versions it wrote
+    boolean ownWrite = sessionStore.isOwnWrite(sessionID, stored.getVersion());
+    if (!webSocketService.hasSessionPrincipals(sessionID)) {
+      lastSeen.remove(sessionID);
+      return;
+    }
+    if (ownWrite) {
+      lastSeen.put(sessionID, stored);
+      return;
+    }
+    LOGGER.debug("onSessionChanged() session {} was changed on another node", sessionID);
+    sessionStore.refresh(stored);
+    Session previous = lastSeen.put(sessionID, stored);
+    sessionMailboxExecutor.execute(sessionID, () -> sendChanges(previous, stored));
+  }
+
+  private void onSessionsDeleted() {
+    List<String> live =
+        webSocketService.getSessionPrincipalList().stream()
+            .map(SessionPrincipals::sessionID)
+            .filter(sessionID -> !sessionStore.hasPendingWrites(sessionID))
+            .collect(Collectors.toList());
+    if (live.isEmpty()) {
+      return;
+    }
+    Set<String> stored =
+        new HashSet<>(
+            mongoTemplate.findDistinct(
+                Query.query(Criteria.where("sessionID").in(live)),
+                "sessionID",
+                Session.class,
+                String.class));
+    for (String sessionID : live) {
+      if (!stored.contains(sessionID)) {
+        LOGGER.debug("onSessionsDeleted() session {} was closed on another node", sessionID);
+        lastSeen.remove(sessionID);
+        sessionStore.evictDeleted(sessionID);
+        sessionMailboxExecutor.execute(
+            sessionID,
+            () -> {
+              webSocketService.sendSessionClosedToMembers(sessionID);
+              webSocketService.removeSession(sessionID);
+            });
+      }
+    }
+  }
+
+  /** Sends the parts of the session that differ from the previous state, everything if unknown. */
+  void sendChanges(Session previous, Session current) {
+    if (!webSocketService.hasSessionPrincipals(current.getSessionID())) {
+      return;
+    }
+    if (previous == null
+        || !Objects.equals(previous.getMembers(), current.getMembers())
+        || !Objects.equals(previous.getCurrentHighlights(), current.getCurrentHighlights())) {
+      webSocketService.sendMembersUpdate(current);
+    }
+    if (previous == null || previous.getSessionState() != current.getSessionState()) {
+      webSocketService.sendSessionStateToMembers(current);
+    }
+    if (current.getSessionConfig() != null
+        && (previous == null
+            || previous.getSessionConfig() == null
+            || !Objects.equals(
+                previous.getSessionConfig().getUserStories(),
+                current.getSessionConfig().getUserStories()))) {
+      webSocketService.sendUpdatedUserStoriesToMembers(current);
+    }
+    if (previous == null || previous.getHostVoting() != current.getHostVoting()) {
+      webSocketService.sendMembersHostVoting(current);
+    }
+    if (previous != null
+        && !Objects.equals(previous.getHostEstimation(), current.getHostEstimation())) {
+      webSocketService.sendMembersAdminVote(current);
+    }
+    if (current.getTimerTimestamp() != null
+        && (previous == null
+            || !Objects.equals(previous.getTimerTimestamp(), current.getTimerTimestamp()))) {
+      webSocketService.sendTimerStartMessage(current, current.getTimerTimestamp());
+    }
+  }
+}
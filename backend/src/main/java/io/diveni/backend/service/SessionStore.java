@@ -0,0 +1,769 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import io.diveni.backend.jfr.SessionWriteEvent;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.repository.SessionRepository;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds the live sessions in memory and is the source of truth for them while they are active.
+ * Reads are answered from memory, writes only queue the change. A change is either a full replace
+ * of the document ({@link #save}) or a list of targeted updates ({@link #update}); a replace
+ * supersedes everything queued before it. Queued changes are written to MongoDB in batches every
+ * SESSIONS_FLUSH_INTERVAL_MS and on shutdown, so the database lags behind by at most one flush
+ * interval. Sessions that have not been touched for SESSIONS_IDLE_EVICTION_MS are dropped from
+ * memory once they are persisted.
+ *
+ * <p>{@link #replace} and {@link #update} only succeed if the given expected session is still the
+ * current one, callers reload and retry otherwise. Every write to the database increments the
+ * session's version, the cached sessions carry the version their flushed state will have in the
+ * database, so a concurrent change made elsewhere surfaces as an optimistic locking failure.
+ * Queued updates only apply to the version they were made on, the ones a flush could not apply are
+ * queued again on top of the stored version.
+ *
+ * <p>With SESSIONS_WRITE_BEHIND=false every call goes straight to the repository.
+ *
+ * <p>The versions this node wrote are remembered per session until their change is consumed, so
+ * changes of the stored sessions that other nodes made can be told apart from the own ones (see
+ * {@link #isOwnWrite}).
+ */
+@Component
+public class SessionStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SessionStore.class);
+
+  // bounds the written versions of sessions whose changes nobody consumes
+  private static final int MAX_WRITTEN_VERSIONS = 64;
+
+  @Autowired SessionRepository sessionRepo;
+
+  @Autowired MongoTemplate mongoTemplate;
+
+  @Autowired DiveniMetrics metrics;
+
+  @Value("${SESSIONS_WRITE_BEHIND:true}")
+  private boolean WRITE_BEHIND = true;
+
+  @Value("${SESSIONS_FLUSH_BATCH_SIZE:100}")
+  private int FLUSH_BATCH_SIZE = 100;
+
+  @Value("${SESSIONS_IDLE_EVICTION_MS:1800000}")
+  private long IDLE_EVICTION_MS = 1800000;
+
+  private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+  private final Map<String, String> sessionIDByMemberID = new ConcurrentHashMap<>();
+
+  private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+
+  private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+
+  private final Map<String, NavigableSet<Long>> writtenVersions = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void initializeVersions() {
+    // sessions stored before the version field existed would otherwise be treated as new
+    UpdateResult result =
+        mongoTemplate.updateMulti(
+            Query.query(Criteria.where("version").exists(false)),
+            new Update().set("version", 0L),
+            Session.class);
+    if (result.getModifiedCount() > 0) {
+      LOGGER.info("initializeVersions() versioned {} sessions", result.getModifiedCount());
+    }
+  }
+
+  public Optional<Session> findBySessionID(String sessionID) {
+    if (!WRITE_BEHIND) {
+      return Optional.ofNullable(sessionRepo.findBySessionID(sessionID));
+    }
+    Session session = sessions.get(sessionID);
+    if (session == null) {
+      session = cacheLoaded(sessionRepo.findBySessionID(sessionID));
+    }
+    if (session != null) {
+      touch(sessionID);
+    }
+    return Optional.ofNullable(session);
+  }
+
+  public Optional<Session> findByAdminCookie(UUID adminCookie) {
+    if (!WRITE_BEHIND) {
+      return Optional.ofNullable(sessionRepo.findByAdminCookie(adminCookie));
+    }
+    // only used when an admin reconnects, so a scan over the live sessions is fine
+    Optional<Session> cached =
+        sessions.values().stream()
+            .filter(s -> adminCookie != null && adminCookie.equals(s.getAdminCookie()))
+            .findFirst();
+    if (cached.isPresent()) {
+      touch(cached.get().getSessionID());
+      return cached;
+    }
+    return Optional.ofNullable(cacheLoaded(sessionRepo.findByAdminCookie(adminCookie)));
+  }
+
+  public Optional<Session> findByMemberID(String memberID) {
+    if (!WRITE_BEHIND) {
+      return sessionRepo.findByMemberID(memberID);
+    }
+    String sessionID = sessionIDByMemberID.get(memberID);
+    if (sessionID != null) {
+      Session session = sessions.get(sessionID);
+      if (session != null && containsMember(session, memberID)) {
+        touch(sessionID);
+        return Optional.of(session);
+      }
+    }
+    // the stored document may still list a member that already left, the cached copy decides
+    return sessionRepo
+        .findByMemberID(memberID)
+        .map(this::cacheLoaded)
+        .filter(s -> containsMember(s, memberID));
+  }
+
+  /**
+   * Like {@link #findByMemberID} but the stored session is loaded without its user stories, the
+   * cached one is complete. Only meant for targeted updates, never replace a session with it.
+   */
+  public Optional<Session> findWithoutUserStoriesByMemberID(String memberID) {
+    if (!WRITE_BEHIND) {
+      return sessionRepo.findWithoutUserStoriesByMemberID(memberID);
+    }
+    return findByMemberID(memberID);
+  }
+
+  public boolean existsByMemberID(String memberID) {
+    if (!WRITE_BEHIND) {
+      return sessionRepo.existsByMemberID(memberID);
+    }
+    return findByMemberID(memberID).isPresent();
+  }
+
+  /**
+   * Returns every stored session. Pending changes are flushed first; sessions that are live in
+   * memory are returned as their cached instance, all others are not pulled into the cache.
+   */
+  public List<Session> findAll() {
+    if (!WRITE_BEHIND) {
+      return sessionRepo.findAll();
+    }
+    flush();
+    return sessionRepo.findAll().stream()
+        .map(s -> sessions.getOrDefault(s.getSessionID(), s))
+        .collect(Collectors.toList());
+  }
+
+  /** Stores the session unconditionally, used for sessions that are not shared yet. */
+  public Session save(Session session) {
+    if (!WRITE_BEHIND) {
+      return recordWrite(saveDocument("save", session));
+    }
+    pendingWrites.compute(
+        session.getSessionID(),
+        (sessionID, write) -> {
+          updateMemberIndex(sessions.put(sessionID, session), session);
+          return PendingWrite.replace();
+        });
+    touch(session.getSessionID());
+    return session;
+  }
+
+  /**
+   * Replaces the session if expected is still the current state of it.
+   *
+   * @return the stored session or null if the session was changed in the meantime
+   */
+  public Session replace(Session expected, Session next) {
+    if (!WRITE_BEHIND) {
+      try {
+        return recordWrite(saveDocument("replace", next));
+      } catch (OptimisticLockingFailureException e) {
+        return null;
+      }
+    }
+    AtomicBoolean replaced = new AtomicBoolean();
+    pendingWrites.compute(
+        next.getSessionID(),
+        (sessionID, write) -> {
+          if (sessions.get(sessionID) != expected) {
+            return write;
+          }
+          updateMemberIndex(sessions.put(sessionID, next), next);
+          replaced.set(true);
+          return PendingWrite.replace();
+        });
+    touch(next.getSessionID());
+    return replaced.get() ? next : null;
+  }
+
+  /**
+   * Like {@link #replace} but persists the change as the given targeted update instead of
+   * rewriting the whole document. The query has to select the stored session.
+   *
+   * @return the stored session or null if the session was changed in the meantime
+   */
+  public Session update(Session expected, Session next, Query query, Update update) {
+    update.inc("version", 1);
+    if (!WRITE_BEHIND) {
+      SessionWriteEvent event = new SessionWriteEvent();
+      event.begin();
+      UpdateResult result =
+          mongoTemplate.updateFirst(
+              query.addCriteria(Criteria.where("version").is(expected.getVersion())),
+              update,
+              Session.class);
+      event.commit(
+          next.getSessionID(), "update", 1, next.getMembers().size(), () -> getBsonSize(update));
+      if (result.getMatchedCount() == 0) {
+        return null;
+      }
+      return recordWrite(next.withVersion(expected.getVersion() + 1));
+    }
+    AtomicBoolean updated = new AtomicBoolean();
+    pendingWrites.compute(
+        next.getSessionID(),
+        (sessionID, write) -> {
+          if (sessions.get(sessionID) != expected) {
+            return write;
+          }
+          updateMemberIndex(sessions.put(sessionID, next), next);
+          updated.set(true);
+          return write == null ? PendingWrite.update(query, update) : write.append(query, update);
+        });
+    touch(next.getSessionID());
+    return updated.get() ? next : null;
+  }
+
+  public synchronized void delete(Session session) {
+    String sessionID = session.getSessionID();
+    pendingWrites.remove(sessionID);
+    writtenVersions.remove(sessionID);
+    sessionRepo.delete(session);
+    if (WRITE_BEHIND) {
+      Session removed = sessions.remove(sessionID);
+      updateMemberIndex(removed, null);
+      lastAccess.remove(sessionID);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${SESSIONS_FLUSH_INTERVAL_MS:1000}")
+  public synchronized void flush() {
+    if (pendingWrites.isEmpty()) {
+      return;
+    }
+    LOGGER.debug("--> flush()");
+    long start = System.nanoTime();
+    List<Session> replacements = new ArrayList<>();
+    List<PendingWrite> updates = new ArrayList<>();
+    int flushed = 0;
+    for (String sessionID : new ArrayList<>(pendingWrites.keySet())) {
+      PendingWrite write = drain(sessionID);
+      if (write == null) {
+        continue;
+      }
+      if (write.snapshot == null) {
+        // deleted in the meantime
+        continue;
+      }
+      if (write.replace) {
+        replacements.add(write.snapshot);
+      } else {
+        updates.add(write);
+      }
+      if (updates.size() >= FLUSH_BATCH_SIZE) {
+        flushed += updateBatch(updates);
+        updates = new ArrayList<>();
+      }
+    }
+    for (Session replacement : replacements) {
+      flushed += saveReplacement(replacement);
+    }
+    if (!updates.isEmpty()) {
+      flushed += updateBatch(updates);
+    }
+    metrics.recordFlush(flushed, System.nanoTime() - start);
+    LOGGER.debug("<-- flush() {} sessions", flushed);
+  }
+
+  @Scheduled(fixedDelayString = "${SESSIONS_EVICTION_INTERVAL_MS:60000}")
+  public void evictIdleSessions() {
+    if (!WRITE_BEHIND) {
+      return;
+    }
+    long threshold = System.currentTimeMillis() - IDLE_EVICTION_MS;
+    for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+      String sessionID = entry.getKey();
+      Long accessed = lastAccess.get(sessionID);
+      if (pendingWrites.containsKey(sessionID) || (accessed != null && accessed > threshold)) {
+        continue;
+      }
+      pendingWrites.computeIfAbsent(
+          sessionID,
+          id -> {
+            if (sessions.remove(id, entry.getValue())) {
+              updateMemberIndex(entry.getValue(), null);
+              lastAccess.remove(id);
+              LOGGER.debug("evictIdleSessions() evicted {}", id);
+            }
+            return null;
+          });
+    }
+  }
+
+  /** Persists the pending changes and drops the cached sessions matching the filter. */
+  public void evictSessions(Predicate<String> sessionIDs) {
+    if (!WRITE_BEHIND) {
+      return;
+    }
+    flush();
+    for (String sessionID : sessions.keySet()) {
+      if (!sessionIDs.test(sessionID)) {
+        continue;
+      }
+      // sessions changed again since the flush stay until they are persisted
+      pendingWrites.computeIfAbsent(
+          sessionID,
+          id -> {
+            updateMemberIndex(sessions.remove(id), null);
+            lastAccess.remove(id);
+            return null;
+          });
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    LOGGER.info("--> flushOnShutdown()");
+    flush();
+    LOGGER.info("<-- flushOnShutdown()");
+  }
+
+  /**
+   * Whether the given stored version of the session is one this node has written itself. Changes
+   * arrive in the order they were stored, so the version and all older ones are forgotten.
+   */
+  public boolean isOwnWrite(String sessionID, Long version) {
+    NavigableSet<Long> written = writtenVersions.get(sessionID);
+    if (written == null || version == null) {
+      return false;
+    }
+    written.headSet(version).clear();
+    return written.remove(version);
+  }
+
+  public boolean hasPendingWrites(String sessionID) {
+    return pendingWrites.containsKey(sessionID);
+  }
+
+  /**
+   * Takes over a newer version of the session that another node stored. A cached copy with queued
+   * changes is kept, queued updates are applied on top of the stored one by the next flush while a
+   * queued replace conflicts with it and is dropped.
+   */
+  public void refresh(Session stored) {
+    if (!WRITE_BEHIND) {
+      return;
+    }
+    pendingWrites.compute(
+        stored.getSessionID(),
+        (sessionID, write) -> {
+          Session cached = sessions.get(sessionID);
+          if (write == null
+              && cached != null
+              && stored.getVersion() != null
+              && (cached.getVersion() == null || cached.getVersion() < stored.getVersion())) {
+            sessions.put(sessionID, stored);
+            updateMemberIndex(cached, stored);
+          }
+          return write;
+        });
+  }
+
+  /** Drops a session that was deleted by another node. */
+  public void evictDeleted(String sessionID) {
+    writtenVersions.remove(sessionID);
+    if (WRITE_BEHIND) {
+      evict(sessionID);
+    }
+  }
+
+  public int getCachedSessionCount() {
+    return sessions.size();
+  }
+
+  public int getDirtySessionCount() {
+    return pendingWrites.size();
+  }
+
+  /** Takes the pending write of a session together with the session state it belongs to. */
+  private PendingWrite drain(String sessionID) {
+    List<PendingWrite> drained = new ArrayList<>(1);
+    pendingWrites.computeIfPresent(
+        sessionID,
+        (id, write) -> {
+          write.snapshot = sessions.get(id);
+          drained.add(write);
+          return null;
+        });
+    return drained.isEmpty() ? null : drained.get(0);
+  }
+
+  private int saveReplacement(Session snapshot) {
+    try {
+      Session saved = recordWrite(saveDocument("replace", snapshot));
+      updateCachedVersion(snapshot, saved.getVersion());
+      return 1;
+    } catch (OptimisticLockingFailureException e) {
+      LOGGER.warn(
+          "flush() session {} was changed elsewhere, dropping the cached copy",
+          snapshot.getSessionID());
+      evict(snapshot.getSessionID());
+      return 0;
+    } catch (RuntimeException e) {
+      LOGGER.error("flush() failed, retrying session {} with the next flush", snapshot, e);
+      retryAsReplace(snapshot.getSessionID());
+      return 0;
+    }
+  }
+
+  private int updateBatch(List<PendingWrite> batch) {
+    int queued = batch.stream().mapToInt(write -> write.updates.size()).sum();
+    try {
+      BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.ORDERED, Session.class);
+      for (PendingWrite write : batch) {
+        for (int i = 0; i < write.updates.size(); i++) {
+          bulkOperations.updateOne(write.getQuery(i), write.updates.get(i).getSecond());
+        }
+      }
+      SessionWriteEvent event = new SessionWriteEvent();
+      event.begin();
+      BulkWriteResult result = bulkOperations.execute();
+      event.commit(
+          batch.size() == 1 ? batch.get(0).snapshot.getSessionID() : null,
+          "bulkUpdate",
+          batch.size(),
+          batch.stream().mapToInt(write -> write.snapshot.getMembers().size()).sum(),
+          () ->
+              batch.stream()
+                  .flatMap(write -> write.updates.stream())
+                  .mapToInt(update -> getBsonSize(update.getSecond()))
+                  .sum());
+      if (result.getMatchedCount() == queued) {
+        batch.forEach(write -> updateVersions(write, write.updates.size()));
+        return batch.size();
+      }
+      LOGGER.warn(
+          "flush() {} of {} updates did not match, checking the stored versions",
+          queued - result.getMatchedCount(),
+          queued);
+    } catch (RuntimeException e) {
+      // some updates may have been applied already, the stored versions tell which ones
+      LOGGER.error("flush() failed, checking the stored versions of {} sessions", batch.size(), e);
+    }
+    return reapply(batch);
+  }
+
+  /**
+   * Queues the updates of the batch that were not applied again on top of the stored version. An
+   * update increments the version it matches, so the stored version tells how many of the queued
+   * updates of a session were applied.
+   */
+  private int reapply(List<PendingWrite> batch) {
+    Map<String, Long> storedVersions;
+    try {
+      storedVersions = findStoredVersions(batch);
+    } catch (RuntimeException e) {
+      LOGGER.error("flush() failed, retrying {} sessions with the next flush", batch.size(), e);
+      batch.forEach(write -> requeue(write.snapshot.getSessionID(), write.updates));
+      return 0;
+    }
+    int flushed = 0;
+    for (PendingWrite write : batch) {
+      String sessionID = write.snapshot.getSessionID();
+      if (!storedVersions.containsKey(sessionID)) {
+        LOGGER.warn(
+            "flush() session {} was deleted elsewhere, dropping the cached copy", sessionID);
+        evict(sessionID);
+        continue;
+      }
+      Long base = write.snapshot.getVersion();
+      Long stored = storedVersions.get(sessionID);
+      int applied = 0;
+      if (base != null
+          && stored != null
+          && stored >= base
+          && stored - base <= write.updates.size()) {
+        applied = (int) (stored - base);
+      } else {
+        LOGGER.warn(
+            "flush() session {} was changed elsewhere, applying the queued updates on top",
+            sessionID);
+      }
+      updateVersions(write, applied);
+      if (applied == write.updates.size()) {
+        flushed++;
+        continue;
+      }
+      updateCachedVersion(write.snapshot, stored);
+      requeue(sessionID, write.updates.subList(applied, write.updates.size()));
+    }
+    return flushed;
+  }
+
+  private Map<String, Long> findStoredVersions(List<PendingWrite> batch) {
+    Query query =
+        Query.query(
+            Criteria.where("sessionID")
+                .in(
+                    batch.stream()
+                        .map(write -> write.snapshot.getSessionID())
+                        .collect(Collectors.toList())));
+    query.fields().include("sessionID", "version");
+    Map<String, Long> versions = new HashMap<>();
+    for (Document stored :
+        mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Session.class))) {
+      Object version = stored.get("version");
+      versions.put(
+          stored.getString("sessionID"),
+          version instanceof Number ? ((Number) version).longValue() : null);
+    }
+    return versions;
+  }
+
+  /** Records the versions of the first applied updates of the write as the own ones. */
+  private void updateVersions(PendingWrite write, int applied) {
+    Long base = write.snapshot.getVersion();
+    if (base == null || applied == 0) {
+      return;
+    }
+    for (int i = 1; i <= applied; i++) {
+      recordWrite(write.snapshot.withVersion(base + i));
+    }
+    updateCachedVersion(write.snapshot, base + applied);
+  }
+
+  /**
+   * Moves the cached session to the version that was just written, as long as it still builds on
+   * the flushed snapshot. Replacing the instance makes concurrent writers based on it retry.
+   */
+  private void updateCachedVersion(Session snapshot, Long version) {
+    pendingWrites.compute(
+        snapshot.getSessionID(),
+        (sessionID, write) -> {
+          sessions.computeIfPresent(
+              sessionID,
+              (id, current) ->
+                  Objects.equals(current.getVersion(), snapshot.getVersion())
+                      ? current.withVersion(version)
+                      : current);
+          return write;
+        });
+  }
+
+  private Session saveDocument(String operation, Session session) {
+    SessionWriteEvent event = new SessionWriteEvent();
+    event.begin();
+    Session saved = sessionRepo.save(session);
+    event.commit(
+        session.getSessionID(),
+        operation,
+        1,
+        session.getMembers().size(),
+        () -> getBsonSize(session));
+    return saved;
+  }
+
+  /** Size of the session document in MongoDB, only computed for recorded events. */
+  private int getBsonSize(Session session) {
+    try {
+      Document document = new Document();
+      mongoTemplate.getConverter().write(session, document);
+      return encode(document).getByteBuffer().remaining();
+    } catch (RuntimeException e) {
+      LOGGER.debug("getBsonSize() session could not be encoded", e);
+      return -1;
+    }
+  }
+
+  /** Size of the update as it is sent to MongoDB, only computed for recorded events. */
+  private int getBsonSize(Update update) {
+    try {
+      Object document = mongoTemplate.getConverter().convertToMongoType(update.getUpdateObject());
+      return document instanceof Document
+          ? encode((Document) document).getByteBuffer().remaining()
+          : -1;
+    } catch (RuntimeException e) {
+      LOGGER.debug("getBsonSize() update could not be encoded", e);
+      return -1;
+    }
+  }
+
+  private RawBsonDocument encode(Document document) {
+    Codec<Document> codec = mongoTemplate.getDb().getCodecRegistry().get(Document.class);
+    return new RawBsonDocument(document, codec);
+  }
+
+  private Session recordWrite(Session written) {
+    if (written != null && written.getVersion() != null) {
+      NavigableSet<Long> versions =
+          writtenVersions.computeIfAbsent(
+              written.getSessionID(), sessionID -> new ConcurrentSkipListSet<>());
+      versions.add(written.getVersion());
+      while (versions.size() > MAX_WRITTEN_VERSIONS) {
+        versions.pollFirst();
+      }
+    }
+    return written;
+  }
+
+  private void evict(String sessionID) {
+    pendingWrites.compute(
+        sessionID,
+        (id, write) -> {
+          updateMemberIndex(sessions.remove(id), null);
+          lastAccess.remove(id);
+          return null;
+        });
+  }
+
+  private void retryAsReplace(String sessionID) {
+    pendingWrites.compute(
+        sessionID, (id, write) -> sessions.containsKey(id) ? PendingWrite.replace() : write);
+  }
+
+  /** Queues the updates in front of the ones made since they were drained. */
+  private void requeue(String sessionID, List<Pair<Query, Update>> updates) {
+    pendingWrites.compute(
+        sessionID,
+        (id, write) -> {
+          if (!sessions.containsKey(id) || (write != null && write.replace)) {
+            return write;
+          }
+          PendingWrite retry = new PendingWrite(false, new ArrayList<>(updates));
+          if (write != null) {
+            retry.updates.addAll(write.updates);
+          }
+          return retry;
+        });
+  }
+
+  private Session cacheLoaded(Session loaded) {
+    if (loaded == null) {
+      return null;
+    }
+    Session cached = sessions.putIfAbsent(loaded.getSessionID(), loaded);
+    if (cached != null) {
+      return cached;
+    }
+    updateMemberIndex(null, loaded);
+    touch(loaded.getSessionID());
+    return loaded;
+  }
+
+  private void updateMemberIndex(Session previous, Session current) {
+    if (previous != null) {
+      for (Member member : previous.getMembers()) {
+        if (current == null || !containsMember(current, member.getMemberID())) {
+          sessionIDByMemberID.remove(member.getMemberID(), previous.getSessionID());
+        }
+      }
+    }
+    if (current != null) {
+      for (Member member : current.getMembers()) {
+        sessionIDByMemberID.put(member.getMemberID(), current.getSessionID());
+      }
+    }
+  }
+
+  private void touch(String sessionID) {
+    lastAccess.put(sessionID, System.currentTimeMillis());
+  }
+
+  private static boolean containsMember(Session session, String memberID) {
+    return session.getMembers().stream().anyMatch(m -> m.getMemberID().equals(memberID));
+  }
+
+  /**
+   * Changes of one session that are not persisted yet. Only accessed while holding the lock of
+   * its entry in {@link #pendingWrites}.
+   */
+  private static final class PendingWrite {
+
+    private final boolean replace;
+
+    private final List<Pair<Query, Update>> updates;
+
+    private Session snapshot;
+
+    private PendingWrite(boolean replace, List<Pair<Query, Update>> updates) {
+      this.replace = replace;
+      this.updates = updates;
+    }
+
+    static PendingWrite replace() {
+      return new PendingWrite(true, List.of());
+    }
+
+    static PendingWrite update(Query query, Update update) {
+      return new PendingWrite(false, new ArrayList<>()).append(query, update);
+    }
+
+    PendingWrite append(Query query, Update update) {
+      if (!replace) {
+        updates.add(Pair.of(query, update));
+      }
+      return this;
+    }
+
+    /** The query of the i-th update, restricted to the version the update was made on. */
+    Query getQuery(int i) {
+      Query query = updates.get(i).getFirst();
+      if (snapshot.getVersion() == null) {
+        return query;
+      }
+      return Query.of(query).addCriteria(Criteria.where("version").is(snapshot.getVersion() + i));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.model.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the voting timers of the sessions. A timer is a single task scheduled at its deadline in
+ * epoch milliseconds, clients count down on their own. When the timer of a session runs out, the
+ * expiry action is run in the mailbox of the session like any message of it.
+ */
+@Service
+public class TimerService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TimerService.class);
+
+  @Autowired
+  @Qualifier("messageBrokerTaskScheduler")
+  private TaskScheduler messageBrokerTaskScheduler;
+
+  @Autowired private SessionMailboxExecutor sessionMailboxExecutor;
+
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Starts the timer of the session at its timer timestamp and replaces a running one. Sessions
+   * without a timer duration have nothing to expire.
+   */
+  public void start(Session session, Runnable onExpiry) {
+    String sessionID = session.getSessionID();
+    cancel(sessionID);
+    Integer seconds =
+        session.getSessionConfig() != null
+            ? session.getSessionConfig().getTimerSeconds().orElse(null)
+            : null;
+    if (session.getTimerTimestamp() == null || seconds == null || seconds <= 0) {
+      return;
+    }
+    long deadline = Utils.getEpochMillisFromString(session.getTimerTimestamp()) + seconds * 1000L;
+    LOGGER.debug("--> start(), sessionID={}, deadline={}", sessionID, deadline);
+    Timer timer = new Timer();
+    // registered before it is scheduled, an expiry right away must find it
+    timers.put(sessionID, timer);
+    timer.expiry =
+        messageBrokerTaskScheduler.schedule(
+            () ->
+                sessionMailboxExecutor.execute(
+                    sessionID, () -> expire(sessionID, timer, onExpiry)),
+            Instant.ofEpochMilli(deadline));
+    LOGGER.debug("<-- start()");
+  }
+
+  public void cancel(String sessionID) {
+    Timer timer = timers.remove(sessionID);
+    if (timer != null && timer.expiry != null) {
+      timer.expiry.cancel(false);
+    }
+  }
+
+  public boolean isRunning(String sessionID) {
+    return timers.containsKey(sessionID);
+  }
+
+  private void expire(String sessionID, Timer timer, Runnable onExpiry) {
+    // a timer that was cancelled or replaced in the meantime is outdated
+    if (timers.remove(sessionID, timer)) {
+      LOGGER.debug("expire() timer of session {} ran out", sessionID);
+      onExpiry.run();
+    }
+  }
+
+  private static final class Timer {
+
+    private volatile ScheduledFuture<?> expiry;
+  }
+}
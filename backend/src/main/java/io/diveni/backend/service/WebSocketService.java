@@ -5,27 +5,41 @@
 */
 package io.diveni.backend.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.jfr.BroadcastEvent;
+import io.diveni.backend.model.IssueImportUpdate;
+import io.diveni.backend.model.Member;
 import io.diveni.backend.model.MemberUpdate;
 import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionState;
+import io.diveni.backend.model.TimerState;
 import io.diveni.backend.model.notification.Notification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import io.diveni.backend.controller.ErrorMessages;
 import io.diveni.backend.principals.AdminPrincipal;
 import io.diveni.backend.principals.MemberPrincipal;
 import io.diveni.backend.principals.SessionPrincipals;
-import lombok.Getter;
 import lombok.val;
 
 @Service
@@ -51,112 +65,151 @@ public class WebSocketService {
 
   public static String USER_STORY_SELECTED_DESTINATION = "/updates/userStorySelected";
 
+  public static String ISSUE_IMPORT_DESTINATION = "/updates/importedIssues";
+
+  public static String SESSION_TOPIC_PREFIX = "/updates/sessions/";
+
+  // only used between the nodes when messages are relayed through an external broker
+  public static String NODES_DESTINATION_PREFIX = "/updates/nodes/";
+
+  public static String UNRESOLVED_USER_DESTINATION = NODES_DESTINATION_PREFIX + "unresolved-user";
+
+  public static String USER_REGISTRY_DESTINATION = NODES_DESTINATION_PREFIX + "user-registry";
+
+  private static final String BROKER_PREFIX = "/updates";
+
+  // broadcasts are sent once to the topic of the session instead of to every member
+  @Value("${WEBSOCKET_SESSION_TOPICS:true}")
+  private boolean SESSION_TOPICS = true;
+
+  // votes arriving within this window are sent as one member update, 0 sends every vote at once
+  @Value("${WEBSOCKET_MEMBER_UPDATE_WINDOW_MS:75}")
+  private long MEMBER_UPDATE_WINDOW_MS = 75;
+
+  // with an external broker the members of a session can be connected to different nodes, so
+  // member updates are full snapshots numbered by the version of the stored session
+  @Value("${WEBSOCKET_BROKER_RELAY:false}")
+  private boolean BROKER_RELAY = false;
+
+  // with the change stream the members of a session can be connected to different nodes as well,
+  // each node numbers the member updates of its own users
+  @Value("${SESSIONS_CHANGE_STREAM:false}")
+  private boolean CHANGE_STREAM = false;
+
   @Autowired private SimpMessagingTemplate simpMessagingTemplate;
 
+  @Autowired
+  @Qualifier("messageBrokerTaskScheduler")
+  private TaskScheduler messageBrokerTaskScheduler;
+
   @Autowired private DatabaseService databaseService;
 
-  @Getter private List<SessionPrincipals> sessionPrincipalList = List.of();
+  @Autowired private DiveniMetrics metrics;
+
+  // registered principals per session, every operation only touches the entry of its session
+  private final Map<String, SessionPrincipals> sessionPrincipals = new ConcurrentHashMap<>();
+
+  private final Map<String, String> sessionIDByMemberID = new ConcurrentHashMap<>();
+
+  /**
+   * Topic on which the broadcasts of a session are published, e.g. {@code
+   * /updates/sessions/<sessionID>/membersUpdated} for {@link #MEMBERS_UPDATED_DESTINATION}.
+   */
+  public static String getSessionTopic(String sessionID, String destination) {
+    return SESSION_TOPIC_PREFIX + sessionID + destination.substring(BROKER_PREFIX.length());
+  }
+
+  /** Snapshot of the principals of all live sessions. */
+  public List<SessionPrincipals> getSessionPrincipalList() {
+    return List.copyOf(sessionPrincipals.values());
+  }
 
   public SessionPrincipals getSessionPrincipals(String sessionID) {
     LOGGER.debug("--> getSessionPrincipals(), sessionID={}", sessionID);
-    SessionPrincipals sessionPrincipals =
-        sessionPrincipalList.stream()
-            .filter(s -> s.sessionID().equals(sessionID))
-            .findFirst()
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage));
+    SessionPrincipals principals = sessionPrincipals.get(sessionID);
+    if (principals == null) {
+      throw new ResponseStatusException(
+          HttpStatus.NOT_FOUND, ErrorMessages.sessionNotFoundErrorMessage);
+    }
     LOGGER.debug("<-- getSessionPrincipals()");
-    return sessionPrincipals;
+    return principals;
+  }
+
+  public int getLiveSessionCount() {
+    return sessionPrincipals.size();
+  }
+
+  /** Members connected to this node over all sessions, computed on every call. */
+  public int getLiveMemberCount() {
+    int members = 0;
+    for (SessionPrincipals principals : sessionPrincipals.values()) {
+      members += principals.memberPrincipals().size();
+    }
+    return members;
+  }
+
+  /** Members of the session connected to this node, 0 if the session has none here. */
+  public int getLiveMemberCount(String sessionID) {
+    SessionPrincipals principals = sessionPrincipals.get(sessionID);
+    return principals == null ? 0 : principals.memberPrincipals().size();
   }
 
-  public synchronized void addMemberIfNew(MemberPrincipal member) {
+  public boolean hasSessionPrincipals(String sessionID) {
+    return sessionPrincipals.containsKey(sessionID);
+  }
+
+  public Optional<String> getSessionIDByMemberID(String memberID) {
+    LOGGER.debug("getSessionIDByMemberID()");
+    return Optional.ofNullable(sessionIDByMemberID.get(memberID));
+  }
+
+  public void addMemberIfNew(MemberPrincipal member) {
     LOGGER.debug("--> addMemberIfNew(), member={}", member.getMemberID());
-    val sessionPrincipals = getSessionPrincipals(member.getSessionID());
-    val updatedMembers =
-        Stream.concat(
-                sessionPrincipals.memberPrincipals().stream()
-                    .filter(m -> !m.getName().equals(member.getName())),
-                Stream.of(member))
-            .collect(Collectors.toSet());
-    sessionPrincipalList =
-        sessionPrincipalList.stream()
-            .map(
-                p -> {
-                  if (p == sessionPrincipals) {
-                    return p.memberPrincipals(updatedMembers);
-                  } else {
-                    return p;
-                  }
-                })
-            .collect(Collectors.toList());
+    // with several nodes the admin may be connected to another node
+    val principals =
+        BROKER_RELAY || CHANGE_STREAM
+            ? sessionPrincipals.computeIfAbsent(
+                member.getSessionID(),
+                sessionID -> new SessionPrincipals(sessionID, null, ConcurrentHashMap.newKeySet()))
+            : getSessionPrincipals(member.getSessionID());
+    principals.memberPrincipals().add(member);
+    sessionIDByMemberID.put(member.getMemberID(), member.getSessionID());
     LOGGER.debug("<-- addMemberIfNew()");
   }
 
-  public synchronized void removeMember(MemberPrincipal member) {
+  public void removeMember(MemberPrincipal member) {
     LOGGER.debug("--> removeMember(), member={}", member.getMemberID());
-    val sessionPrincipals = getSessionPrincipals(member.getSessionID());
-    val updatedMembers =
-        sessionPrincipals.memberPrincipals().stream()
-            .filter(m -> !m.getMemberID().equals(member.getMemberID()))
-            .collect(Collectors.toSet());
-    sessionPrincipalList =
-        sessionPrincipalList.stream()
-            .map(
-                p -> {
-                  if (p == sessionPrincipals) return p.memberPrincipals(updatedMembers);
-                  else return p;
-                })
-            .collect(Collectors.toList());
+    getSessionPrincipals(member.getSessionID()).memberPrincipals().remove(member);
+    sessionIDByMemberID.remove(member.getMemberID(), member.getSessionID());
     databaseService.addRemovedMember();
     LOGGER.debug("<-- removeMember()");
   }
 
-  public synchronized void removeAdmin(AdminPrincipal admin) {
+  public void removeAdmin(AdminPrincipal admin) {
     LOGGER.debug("--> removeAdmin(), admin={}", admin.getAdminID());
-    sessionPrincipalList =
-        sessionPrincipalList.stream()
-            .map(
-                p -> {
-                  if (p.adminPrincipal() == admin) {
-                    return p.adminPrincipal(null);
-                  } else {
-                    return p;
-                  }
-                })
-            .collect(Collectors.toList());
+    sessionPrincipals.computeIfPresent(
+        admin.getSessionID(),
+        (sessionID, principals) ->
+            admin.equals(principals.adminPrincipal())
+                ? principals.adminPrincipal(null)
+                : principals);
     LOGGER.debug("<-- removeAdmin()");
   }
 
-  public synchronized void setAdminUser(AdminPrincipal principal) {
+  public void setAdminUser(AdminPrincipal principal) {
     LOGGER.debug("--> setAdminUser(), principal={}", principal.getAdminID());
-    if (sessionPrincipalList.stream()
-        .anyMatch(p -> p.sessionID().equals(principal.getSessionID()))) {
-      sessionPrincipalList =
-          sessionPrincipalList.stream()
-              .map(
-                  p -> {
-                    if (p.sessionID().equals(principal.getSessionID()))
-                      return p.adminPrincipal(principal);
-                    else return p;
-                  })
-              .collect(Collectors.toList());
-    } else {
-      sessionPrincipalList =
-          Stream.concat(
-                  sessionPrincipalList.stream(),
-                  Stream.of(new SessionPrincipals(principal.getSessionID(), principal, Set.of())))
-              .collect(Collectors.toList());
-    }
+    sessionPrincipals.compute(
+        principal.getSessionID(),
+        (sessionID, principals) ->
+            principals == null
+                ? new SessionPrincipals(sessionID, principal, ConcurrentHashMap.newKeySet())
+                : principals.adminPrincipal(principal));
     LOGGER.debug("<-- setAdminUser()");
   }
 
   public void sendMembersHostVoting(Session session) {
     LOGGER.debug("--> sendMembersHostVoting(), sessionID={}", session.getSessionID());
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(member -> sendUpdatedHostVotingToMember(session, member.getMemberID()));
+    sendToMembers(session.getSessionID(), MEMBER_UPDATES_HOSTVOTING, session.getHostVoting());
     LOGGER.debug("<-- sendMembersHostVoting()");
   }
 
@@ -170,67 +223,136 @@ public class WebSocketService {
     LOGGER.debug("<-- sendUpdatedHostVotingToMember()");
   }
 
+  /** Sends the full member list to everybody in the session. */
   public void sendMembersUpdate(Session session) {
     LOGGER.debug("--> sendMembersUpdate(), sessionID={}", session.getSessionID());
-    val sessionPrincipals = getSessionPrincipals(session.getSessionID());
-    if (sessionPrincipals.adminPrincipal() != null) {
-      simpMessagingTemplate.convertAndSendToUser(
-          sessionPrincipals.adminPrincipal().getName(),
-          MEMBERS_UPDATED_DESTINATION,
-          new MemberUpdate(session.getMembers(), session.getCurrentHighlights()));
-    } // else the admin left the session
-    sendMembersUpdateToMembers(session);
+    sendVersionedMembersUpdate(
+        session,
+        version ->
+            MemberUpdate.snapshot(
+                version, session.getMembers(), session.getCurrentHighlights()),
+        true);
     LOGGER.debug("<-- sendMembersUpdate()");
   }
 
   public void sendMembersUpdateToMembers(Session session) {
     LOGGER.debug("--> sendMembersUpdateToMembers(), sessionID={}", session.getSessionID());
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(
-            member ->
-                simpMessagingTemplate.convertAndSendToUser(
-                    member.getMemberID(),
-                    MEMBERS_UPDATED_DESTINATION,
-                    new MemberUpdate(session.getMembers(), session.getCurrentHighlights())));
+    sendVersionedMembersUpdate(
+        session,
+        version ->
+            MemberUpdate.snapshot(
+                version, session.getMembers(), session.getCurrentHighlights()),
+        false);
     LOGGER.debug("<-- sendMembersUpdateToMembers()");
   }
 
+  /** Sends only the changed estimation of the member instead of the whole member list. */
+  public void sendMemberEstimationUpdate(Session session, String memberID) {
+    LOGGER.debug(
+        "--> sendMemberEstimationUpdate(), sessionID={}, memberID={}",
+        session.getSessionID(),
+        memberID);
+    val member =
+        session.getMembers().stream().filter(m -> m.getMemberID().equals(memberID)).findFirst();
+    if (member.isEmpty() || BROKER_RELAY) {
+      sendMembersUpdate(session);
+    } else if (MEMBER_UPDATE_WINDOW_MS <= 0) {
+      sendVersionedMembersUpdate(
+          session, version -> MemberUpdate.estimationChanged(version, member.get()), true);
+    } else {
+      val sessionPrincipals = getSessionPrincipals(session.getSessionID());
+      synchronized (sessionPrincipals) {
+        // the first vote of a burst opens the window, later ones only replace their entry
+        if (sessionPrincipals.pendingEstimations().isEmpty()) {
+          messageBrokerTaskScheduler.schedule(
+              () -> flushMemberUpdates(session.getSessionID()),
+              Instant.now().plusMillis(MEMBER_UPDATE_WINDOW_MS));
+        }
+        sessionPrincipals.pendingEstimations().put(memberID, member.get());
+      }
+    }
+    LOGGER.debug("<-- sendMemberEstimationUpdate()");
+  }
+
+  public void sendMemberLeftUpdate(Session session, String memberID) {
+    LOGGER.debug(
+        "--> sendMemberLeftUpdate(), sessionID={}, memberID={}", session.getSessionID(), memberID);
+    if (BROKER_RELAY) {
+      sendMembersUpdate(session);
+    } else {
+      sendVersionedMembersUpdate(
+          session, version -> MemberUpdate.memberLeft(version, memberID), true);
+    }
+    LOGGER.debug("<-- sendMemberLeftUpdate()");
+  }
+
+  /** Sends the estimations that are still waiting for the end of their window right away. */
+  public void flushMemberUpdates(String sessionID) {
+    LOGGER.debug("--> flushMemberUpdates(), sessionID={}", sessionID);
+    val principals = sessionPrincipals.get(sessionID);
+    if (principals != null) { // else the session was closed in the meantime
+      synchronized (principals) {
+        sendPendingEstimations(principals);
+      }
+    }
+    LOGGER.debug("<-- flushMemberUpdates()");
+  }
+
+  /**
+   * Sends the member list with the current version only to the given user, used by clients that
+   * missed an update.
+   */
+  public void sendMembersSnapshotToUser(Session session, String userID) {
+    LOGGER.debug(
+        "--> sendMembersSnapshotToUser(), sessionID={}, userID={}", session.getSessionID(), userID);
+    val sessionPrincipals = getSessionPrincipals(session.getSessionID());
+    synchronized (sessionPrincipals) {
+      simpMessagingTemplate.convertAndSendToUser(
+          userID,
+          MEMBERS_UPDATED_DESTINATION,
+          MemberUpdate.snapshot(
+              BROKER_RELAY
+                  ? getStoredVersion(session)
+                  : sessionPrincipals.memberUpdateVersion().get(),
+              session.getMembers(),
+              session.getCurrentHighlights()));
+    }
+    LOGGER.debug("<-- sendMembersSnapshotToUser()");
+  }
+
   public void sendMembersAdminVote(Session session) {
     LOGGER.debug("--> sendMembersAdminVote(), sessionID={}", session.getSessionID());
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(
-            member ->
-                simpMessagingTemplate.convertAndSendToUser(
-                    member.getMemberID(), ADMIN_UPDATED_ESTIMATION, session.getHostEstimation()));
+    sendToMembers(session.getSessionID(), ADMIN_UPDATED_ESTIMATION, session.getHostEstimation());
     LOGGER.debug("<-- sendMembersAdminVote()");
   }
 
   public void sendSessionStateToMembers(Session session) {
     LOGGER.debug("--> sendSessionStateToMembers(), sessionID={}", session.getSessionID());
+    flushMemberUpdates(session.getSessionID());
     // TODO: Send highlighted with it
-    getSessionPrincipals(session.getSessionID()).memberPrincipals().stream()
-        .forEach(member -> sendSessionStateToMember(session, member.getMemberID()));
+    sendToMembers(
+        session.getSessionID(), MEMBER_UPDATES_DESTINATION, session.getSessionState().toString());
     LOGGER.debug("<-- sendSessionStateToMembers()");
   }
 
   public void sendSessionStateToMembersWithAutoReveal(Session session, boolean autoReveal) {
     LOGGER.debug(
         "--> sendSessionStateToMembersWithAutoReveal(), sessionID={}", session.getSessionID());
+    flushMemberUpdates(session.getSessionID());
     // TODO: Send highlighted with it
-    getSessionPrincipals(session.getSessionID()).memberPrincipals().stream()
-        .forEach(
-            member ->
-                sendSessionStateToMemberWithAutoReveal(session, member.getMemberID(), autoReveal));
+    sendToMembers(
+        session.getSessionID(),
+        MEMBER_UPDATES_DESTINATION_AUTOREVEAL,
+        session.getSessionState().toString() + " " + autoReveal);
     LOGGER.debug("<-- sendSessionStateToMembersWithAutoReveal()");
   }
 
   public void sendUpdatedUserStoriesToMembers(Session session) {
     LOGGER.debug("--> sendUpdatedUserStoriesToMembers(), sessionID={}", session.getSessionID());
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(member -> sendUpdatedUserStoriesToMember(session, member.getMemberID()));
+    sendToMembers(
+        session.getSessionID(),
+        US_UPDATES_DESTINATION,
+        session.getSessionConfig().getUserStories());
     LOGGER.debug("<-- sendUpdatedUserStoriesToMembers()");
   }
 
@@ -272,24 +394,13 @@ public class WebSocketService {
         "--> sendSelectedUserStoryToMembers(), sessionID={}, index={}",
         session.getSessionID(),
         index);
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(
-            member ->
-                simpMessagingTemplate.convertAndSendToUser(
-                    member.getMemberID(), USER_STORY_SELECTED_DESTINATION, index));
+    sendToMembers(session.getSessionID(), USER_STORY_SELECTED_DESTINATION, index);
     LOGGER.debug("<-- sendSelectedUserStoryToMembers()");
   }
 
   public void sendTimerStartMessage(Session session, String timestamp) {
     LOGGER.debug("--> sendTimerStartMessage(), sessionID={}", session.getSessionID());
-    val sessionPrincipals = getSessionPrincipals(session.getSessionID());
-    if (sessionPrincipals.adminPrincipal() != null) {
-      sendTimerStartMessageToUser(session, timestamp, sessionPrincipals.adminPrincipal().getName());
-    } // else the admin left the session
-    sessionPrincipals
-        .memberPrincipals()
-        .forEach(member -> sendTimerStartMessageToUser(session, timestamp, member.getMemberID()));
+    sendToSession(session.getSessionID(), START_TIMER_DESTINATION, getTimerState(timestamp));
     LOGGER.debug("<-- sendTimerStartMessage()");
   }
 
@@ -298,34 +409,177 @@ public class WebSocketService {
         "--> sendTimerStartMessageToUser(), sessionID={}, userID={}",
         session.getSessionID(),
         userID);
-    simpMessagingTemplate.convertAndSendToUser(userID, START_TIMER_DESTINATION, timestamp);
+    simpMessagingTemplate.convertAndSendToUser(
+        userID, START_TIMER_DESTINATION, getTimerState(timestamp));
     LOGGER.debug("<-- sendTimerStartMessageToUser()");
   }
 
+  public void sendIssueImportUpdate(AdminPrincipal admin, IssueImportUpdate update) {
+    LOGGER.debug(
+        "--> sendIssueImportUpdate(), sessionID={}, state={}",
+        admin.getSessionID(),
+        update.getState());
+    simpMessagingTemplate.convertAndSendToUser(
+        admin.getAdminID(), ISSUE_IMPORT_DESTINATION, update);
+    LOGGER.debug("<-- sendIssueImportUpdate()");
+  }
+
   public void sendNotification(Session session, Notification notification) {
     LOGGER.debug("--> sendNotification(), sessionID={}", session.getSessionID());
-    getSessionPrincipals(session.getSessionID())
-        .memberPrincipals()
-        .forEach(
-            member -> {
-              simpMessagingTemplate.convertAndSendToUser(
-                  member.getMemberID(), NOTIFICATIONS_DESTINATION, notification);
-            });
-    if (getSessionPrincipals(session.getSessionID()).adminPrincipal() != null) {
-      simpMessagingTemplate.convertAndSendToUser(
-          getSessionPrincipals(session.getSessionID()).adminPrincipal().getAdminID(),
-          NOTIFICATIONS_DESTINATION,
-          notification);
-    }
+    sendToSession(session.getSessionID(), NOTIFICATIONS_DESTINATION, notification);
     LOGGER.debug("<-- sendNotification()");
   }
 
+  /** Tells the members that the session is gone, used if it was closed on another node. */
+  public void sendSessionClosedToMembers(String sessionID) {
+    LOGGER.debug("--> sendSessionClosedToMembers(), sessionID={}", sessionID);
+    flushMemberUpdates(sessionID);
+    sendToMembers(sessionID, MEMBER_UPDATES_DESTINATION, SessionState.SESSION_CLOSED.toString());
+    LOGGER.debug("<-- sendSessionClosedToMembers()");
+  }
+
   public void removeSession(Session session) {
-    LOGGER.debug("--> removeSession(), sessionID={}", session.getSessionID());
-    sessionPrincipalList =
-        sessionPrincipalList.stream()
-            .filter(p -> !p.sessionID().equals(session.getSessionID()))
-            .collect(Collectors.toList());
+    removeSession(session.getSessionID());
+  }
+
+  public void removeSession(String sessionID) {
+    LOGGER.debug("--> removeSession(), sessionID={}", sessionID);
+    SessionPrincipals principals = sessionPrincipals.remove(sessionID);
+    if (principals != null) {
+      principals
+          .memberPrincipals()
+          .forEach(member -> sessionIDByMemberID.remove(member.getMemberID(), sessionID));
+    }
     LOGGER.debug("<-- removeSession()");
   }
+
+  /** Sends the payload to the admin and all members of the session. */
+  private void sendToSession(String sessionID, String destination, Object payload) {
+    broadcast(sessionID, destination, payload, true);
+  }
+
+  /**
+   * Sends the payload to all members of the session. On the session topic the admin receives it as
+   * well if subscribed, the admin page only listens to destinations meant for everyone.
+   */
+  private void sendToMembers(String sessionID, String destination, Object payload) {
+    broadcast(sessionID, destination, payload, false);
+  }
+
+  /**
+   * Publishes the payload on the session topic or sends it to every principal of the session, and
+   * records the fanout in the metrics and as {@link BroadcastEvent}.
+   */
+  private void broadcast(
+      String sessionID, String destination, Object payload, boolean includeAdmin) {
+    val event = new BroadcastEvent();
+    event.begin();
+    long start = System.nanoTime();
+    Message<?> message = SESSION_TOPICS ? null : toMessage(payload);
+    if (message == null) {
+      simpMessagingTemplate.convertAndSend(getSessionTopic(sessionID, destination), payload);
+    } else {
+      val sessionPrincipals = getSessionPrincipals(sessionID);
+      if (includeAdmin && sessionPrincipals.adminPrincipal() != null) {
+        sendToUser(sessionPrincipals.adminPrincipal().getName(), destination, message);
+      } // else the admin left the session or is not addressed
+      sessionPrincipals
+          .memberPrincipals()
+          .forEach(member -> sendToUser(member.getMemberID(), destination, message));
+    }
+    long nanos = System.nanoTime() - start;
+    int recipients = countRecipients(sessionID, includeAdmin);
+    metrics.recordFanout(destination, recipients, nanos);
+    // on the topic the template serializes the payload itself, it is only measured if recorded
+    event.commit(
+        sessionID,
+        destination,
+        recipients,
+        () -> getPayloadBytes(message != null ? message : toMessage(payload)));
+  }
+
+  /** The recipients are the principals of the session connected to this node. */
+  private int countRecipients(String sessionID, boolean includeAdmin) {
+    val principals = sessionPrincipals.get(sessionID);
+    if (principals == null) {
+      return 0;
+    }
+    int recipients = principals.memberPrincipals().size();
+    if (includeAdmin && principals.adminPrincipal() != null) {
+      recipients++;
+    }
+    return recipients;
+  }
+
+  /**
+   * Numbers the member updates of a session. Versions are assigned and sent under the lock of the
+   * session so they reach the broker in order.
+   */
+  private void sendVersionedMembersUpdate(
+      Session session, LongFunction<MemberUpdate> update, boolean includeAdmin) {
+    val sessionPrincipals = getSessionPrincipals(session.getSessionID());
+    synchronized (sessionPrincipals) {
+      // queued estimations are older than this update and go out first
+      sendPendingEstimations(sessionPrincipals);
+      val payload =
+          update.apply(
+              BROKER_RELAY
+                  ? getStoredVersion(session)
+                  : sessionPrincipals.memberUpdateVersion().incrementAndGet());
+      if (includeAdmin) {
+        sendToSession(session.getSessionID(), MEMBERS_UPDATED_DESTINATION, payload);
+      } else {
+        sendToMembers(session.getSessionID(), MEMBERS_UPDATED_DESTINATION, payload);
+      }
+    }
+  }
+
+  private static TimerState getTimerState(String timestamp) {
+    return new TimerState(Utils.getEpochMillisFromString(timestamp), System.currentTimeMillis());
+  }
+
+  private static long getStoredVersion(Session session) {
+    return session.getVersion() != null ? session.getVersion() : 0L;
+  }
+
+  /** Sends the estimations collected during the window as one update. Needs the session lock. */
+  private void sendPendingEstimations(SessionPrincipals sessionPrincipals) {
+    val pending = sessionPrincipals.pendingEstimations();
+    if (pending.isEmpty()) {
+      return;
+    }
+    List<Member> changed = new ArrayList<>(pending.values());
+    pending.clear();
+    long version = sessionPrincipals.memberUpdateVersion().incrementAndGet();
+    sendToSession(
+        sessionPrincipals.sessionID(),
+        MEMBERS_UPDATED_DESTINATION,
+        changed.size() == 1
+            ? MemberUpdate.estimationChanged(version, changed.get(0))
+            : MemberUpdate.estimationsChanged(version, changed));
+  }
+
+  /**
+   * Serializes the payload once, the resulting message is shared by all recipients. Only the
+   * headers are copied for every user destination.
+   */
+  private Message<?> toMessage(Object payload) {
+    Message<?> message = simpMessagingTemplate.getMessageConverter().toMessage(payload, null);
+    if (message == null) {
+      throw new MessageConversionException("Unable to convert payload " + payload);
+    }
+    return message;
+  }
+
+  private static int getPayloadBytes(Message<?> message) {
+    return message.getPayload() instanceof byte[] bytes ? bytes.length : -1;
+  }
+
+  private void sendToUser(String user, String destination, Message<?> message) {
+    simpMessagingTemplate.send(
+        simpMessagingTemplate.getUserDestinationPrefix()
+            + StringUtils.replace(user, "/", "%2F")
+            + destination,
+        message);
+  }
 }
@@ -0,0 +1,133 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.cluster;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import io.diveni.backend.model.NodeLease;
+import io.diveni.backend.repository.NodeLeaseRepository;
+import io.diveni.backend.service.SessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Assigns every session to exactly one backend node, so its state and its websocket users live in
+ * one JVM and the in-memory session cache stays valid. Each node holds a lease in the nodes
+ * collection that it renews every CLUSTER_LEASE_RENEW_MS. The nodes with a valid lease form a
+ * consistent hash ring over the session IDs; when a node stops renewing, its lease runs out after
+ * CLUSTER_LEASE_TTL_MS and its sessions move to the remaining nodes with the next renewal.
+ *
+ * <p>Without CLUSTER_AFFINITY every node owns every session.
+ */
+@Service
+public class ClusterService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClusterService.class);
+
+  @Value("${CLUSTER_AFFINITY:false}")
+  private boolean AFFINITY = false;
+
+  @Value("${CLUSTER_NODE_ID:#{null}}")
+  private String NODE_ID;
+
+  @Value("${CLUSTER_NODE_URL:#{null}}")
+  private String NODE_URL;
+
+  @Value("${CLUSTER_LEASE_TTL_MS:15000}")
+  private long LEASE_TTL_MS = 15000;
+
+  @Autowired NodeLeaseRepository nodeLeaseRepo;
+
+  @Autowired SessionStore sessionStore;
+
+  private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of());
+
+  private volatile Map<String, String> urlByNodeID = Map.of();
+
+  @PostConstruct
+  public void join() {
+    if (!AFFINITY) {
+      return;
+    }
+    if (NODE_ID == null) {
+      NODE_ID = UUID.randomUUID().toString();
+    }
+    if (NODE_URL == null) {
+      LOGGER.warn("CLUSTER_NODE_URL is not set, clients of other nodes cannot be sent here");
+    }
+    LOGGER.info("join() node {} at {}", NODE_ID, NODE_URL);
+    updateRing(List.of());
+    renewLease();
+  }
+
+  @Scheduled(fixedDelayString = "${CLUSTER_LEASE_RENEW_MS:5000}")
+  public void renewLease() {
+    if (!AFFINITY) {
+      return;
+    }
+    Date now = new Date();
+    try {
+      nodeLeaseRepo.save(new NodeLease(NODE_ID, NODE_URL, new Date(now.getTime() + LEASE_TTL_MS)));
+      updateRing(nodeLeaseRepo.findByExpiresAtAfter(now));
+    } catch (RuntimeException e) {
+      // keep the last known ring, the others drop this node if its lease runs out
+      LOGGER.error("renewLease() failed", e);
+    }
+  }
+
+  @PreDestroy
+  public void leave() {
+    if (AFFINITY) {
+      LOGGER.info("leave() node {}", NODE_ID);
+      nodeLeaseRepo.deleteById(NODE_ID);
+    }
+  }
+
+  public boolean isOwner(String sessionID) {
+    if (!AFFINITY) {
+      return true;
+    }
+    String owner = ring.getNode(sessionID);
+    return owner == null || owner.equals(NODE_ID);
+  }
+
+  /** Returns the URL of the node owning the session if that is another node. */
+  public Optional<String> getOwnerURL(String sessionID) {
+    if (isOwner(sessionID)) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(urlByNodeID.get(ring.getNode(sessionID)));
+  }
+
+  void updateRing(List<NodeLease> leases) {
+    Map<String, String> urls = new HashMap<>();
+    leases.forEach(lease -> urls.put(lease.getNodeID(), lease.getUrl()));
+    // a node keeps its share even if its own lease could not be read back
+    urls.putIfAbsent(NODE_ID, NODE_URL);
+    urlByNodeID = Collections.unmodifiableMap(urls);
+    if (urls.keySet().equals(ring.getNodes())) {
+      return;
+    }
+    ConsistentHashRing next = new ConsistentHashRing(urls.keySet());
+    LOGGER.info("updateRing() nodes {} -> {}", ring.getNodes(), next.getNodes());
+    ring = next;
+    // sessions that moved away are loaded from the database by their new owner
+    sessionStore.evictSessions(sessionID -> !isOwner(sessionID));
+  }
+}
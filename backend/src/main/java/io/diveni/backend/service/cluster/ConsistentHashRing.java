@@ -0,0 +1,68 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps keys to nodes so that every node gets about the same share and adding or removing a node
+ * only moves the keys of that node. Each node is placed on the ring several times, a key belongs
+ * to the first node at or after its own position. Instances are immutable.
+ */
+public final class ConsistentHashRing {
+
+  static final int VIRTUAL_NODES = 128;
+
+  private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+  private final Set<String> nodes;
+
+  public ConsistentHashRing(Collection<String> nodeIDs) {
+    this.nodes = Set.copyOf(new TreeSet<>(nodeIDs));
+    for (String nodeID : this.nodes) {
+      for (int i = 0; i < VIRTUAL_NODES; i++) {
+        // on a collision the smaller node ID wins, so every node builds the same ring
+        ring.merge(hash(nodeID + "#" + i), nodeID, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+      }
+    }
+  }
+
+  /** Returns the node owning the key or null if the ring is empty. */
+  public String getNode(String key) {
+    if (ring.isEmpty()) {
+      return null;
+    }
+    Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  public Set<String> getNodes() {
+    return nodes;
+  }
+
+  static long hash(String key) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+      long hash = 0;
+      for (int i = 0; i < Long.BYTES; i++) {
+        hash = (hash << 8) | (digest[i] & 0xff);
+      }
+      return hash;
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform has to support MD5
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.projectmanagementproviders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import io.diveni.backend.model.UserStory;
+
+/**
+ * Imports the issues of a project page by page. The pages are requested on the import executor,
+ * at most ISSUE_TRACKER_IMPORT_CONCURRENCY of them at the same time.
+ */
+public final class IssueImport {
+
+  private IssueImport() {}
+
+  @FunctionalInterface
+  public interface Page {
+    List<UserStory> fetch() throws IOException;
+  }
+
+  /** Receives the issues of an import page by page, in the order of the backlog. */
+  @FunctionalInterface
+  public interface Listener {
+
+    /** Called with the next page, the total is the number of issues of the whole import. */
+    void onPage(List<UserStory> issues, int total);
+
+    /** A cancelled import requests no further pages. */
+    default boolean isCancelled() {
+      return false;
+    }
+  }
+
+  /**
+   * Fetches the pages in parallel and hands them to the listener in the order of the pages, each
+   * as soon as it and the pages before it arrived. At most concurrency pages are in flight, page
+   * n + concurrency is only requested once page n was handed over, so a slow page holds back at
+   * most that many others in memory.
+   */
+  public static void fetchPages(
+      List<Page> pages, int total, Listener listener, Executor executor, int concurrency)
+      throws IOException {
+    Deque<CompletableFuture<List<UserStory>>> inFlight = new ArrayDeque<>();
+    Iterator<Page> remaining = pages.iterator();
+    try {
+      while (remaining.hasNext() || !inFlight.isEmpty()) {
+        while (remaining.hasNext() && inFlight.size() < Math.max(concurrency, 1)) {
+          Page page = remaining.next();
+          inFlight.add(
+              CompletableFuture.supplyAsync(
+                  () -> listener.isCancelled() ? List.<UserStory>of() : fetch(page), executor));
+        }
+        List<UserStory> issues = inFlight.poll().join();
+        if (listener.isCancelled()) {
+          inFlight.forEach(result -> result.cancel(false));
+          return;
+        }
+        listener.onPage(issues, total);
+      }
+    } catch (CompletionException e) {
+      // pages not requested yet are dropped, the import fails as a whole
+      inFlight.forEach(result -> result.cancel(false));
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static List<UserStory> fetch(Page page) {
+    try {
+      return page.fetch();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.projectmanagementproviders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.diveni.backend.model.UserStory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Page of a Jira search, as returned by {@code /rest/api/2/search} of Jira Server and Jira Cloud.
+ * The response is read with a streaming parser and only the issues are kept, so a page never
+ * exists as a whole in memory.
+ */
+@Getter
+@RequiredArgsConstructor
+public class JiraSearchPage {
+
+  // Jira Cloud returns at most 100 issues per page, Jira Server may return less than asked for
+  public static final int PAGE_SIZE = 100;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final int startAt;
+
+  private final int maxResults;
+
+  private final int total;
+
+  private final List<UserStory> issues;
+
+  @FunctionalInterface
+  public interface Request {
+    JiraSearchPage fetch(int startAt) throws IOException;
+  }
+
+  /**
+   * Requests the first page and, once the total is known, the remaining pages in parallel on the
+   * executor, see {@link IssueImport#fetchPages}. The listener receives the first page before the
+   * others are requested.
+   */
+  public static void fetchAll(
+      Request request, IssueImport.Listener listener, Executor executor, int concurrency)
+      throws IOException {
+    JiraSearchPage first = request.fetch(0);
+    if (listener.isCancelled()) {
+      return;
+    }
+    int total = Math.max(first.getTotal(), first.getIssues().size());
+    listener.onPage(first.getIssues(), total);
+    int pageSize = first.getMaxResults() > 0 ? first.getMaxResults() : first.getIssues().size();
+    if (pageSize == 0 || first.getIssues().size() >= total) {
+      return;
+    }
+    List<IssueImport.Page> pages = new ArrayList<>();
+    for (int startAt = first.getStartAt() + pageSize; startAt < total; startAt += pageSize) {
+      int pageStart = startAt;
+      pages.add(() -> request.fetch(pageStart).getIssues());
+    }
+    IssueImport.fetchPages(pages, total, listener, executor, concurrency);
+  }
+
+  public static JiraSearchPage read(InputStream body, String estimationField) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Search result is no JSON object");
+      }
+      int startAt = 0;
+      int maxResults = 0;
+      int total = 0;
+      List<UserStory> issues = new ArrayList<>();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        switch (name) {
+          case "startAt":
+            startAt = parser.getValueAsInt();
+            break;
+          case "maxResults":
+            maxResults = parser.getValueAsInt();
+            break;
+          case "total":
+            total = parser.getValueAsInt();
+            break;
+          case "issues":
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              issues.add(readIssue(parser, estimationField));
+            }
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+      return new JiraSearchPage(startAt, maxResults, total, issues);
+    }
+  }
+
+  private static UserStory readIssue(JsonParser parser, String estimationField)
+      throws IOException {
+    String id = null;
+    String summary = null;
+    String description = null;
+    String estimation = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ("id".equals(name)) {
+        id = readText(parser);
+      } else if ("fields".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          parser.nextToken();
+          if ("summary".equals(field)) {
+            summary = readText(parser);
+          } else if ("description".equals(field)) {
+            description = readText(parser);
+          } else if (field.equals(estimationField)) {
+            estimation = readEstimation(parser);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new UserStory(id, summary, description, estimation, false);
+  }
+
+  private static String readText(JsonParser parser) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  private static String readEstimation(JsonParser parser) throws IOException {
+    if (!parser.currentToken().isNumeric()) {
+      parser.skipChildren();
+      return null;
+    }
+    String estimation = String.valueOf(parser.getDoubleValue());
+    if (estimation.endsWith(".0")) {
+      estimation = estimation.substring(0, estimation.length() - 2);
+    }
+    return estimation;
+  }
+}
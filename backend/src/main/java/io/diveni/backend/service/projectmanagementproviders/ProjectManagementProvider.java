@@ -17,6 +17,16 @@ public interface ProjectManagementProvider {
 
   List<UserStory> getIssues(String tokenIdentifier, String projectName);
 
+  /**
+   * Imports the issues of the project, the listener receives them page by page in the order of
+   * the backlog. Providers that cannot page the issues hand them over at once.
+   */
+  default void importIssues(
+      String tokenIdentifier, String projectName, IssueImport.Listener listener) {
+    List<UserStory> issues = getIssues(tokenIdentifier, projectName);
+    listener.onPage(issues, issues.size());
+  }
+
   void updateIssue(String tokenIdentifier, UserStory story);
 
   String createIssue(String tokenIdentifier, String projectID, UserStory story);
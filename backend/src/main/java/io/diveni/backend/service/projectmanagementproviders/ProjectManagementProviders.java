@@ -0,0 +1,40 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.projectmanagementproviders;
+
+import io.diveni.backend.service.projectmanagementproviders.azuredevops.AzureDevOpsService;
+import io.diveni.backend.service.projectmanagementproviders.jiracloud.JiraCloudService;
+import io.diveni.backend.service.projectmanagementproviders.jiraserver.JiraServerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/** Finds the issue tracker a token identifier was issued by. */
+@Component
+public class ProjectManagementProviders {
+
+  @Autowired private JiraServerService jiraServerService;
+
+  @Autowired private JiraCloudService jiraCloudService;
+
+  @Autowired private AzureDevOpsService azureDevOpsService;
+
+  /** @return the provider holding the token or null if no provider knows it */
+  public ProjectManagementProvider getProvider(String tokenIdentifier) {
+    if (tokenIdentifier == null) {
+      return null;
+    } else if (jiraServerService.containsToken(tokenIdentifier)) {
+      return jiraServerService;
+    } else if (jiraCloudService.containsToken(tokenIdentifier)) {
+      return jiraCloudService;
+    } else if (azureDevOpsService.containsToken(tokenIdentifier)) {
+      return azureDevOpsService;
+    }
+    // If a new project management provider should be implemented, it can just be
+    // added here
+
+    return null;
+  }
+}
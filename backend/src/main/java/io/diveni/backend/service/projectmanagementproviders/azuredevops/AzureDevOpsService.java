@@ -8,12 +8,15 @@ import io.diveni.backend.controller.ErrorMessages;
 import io.diveni.backend.model.Project;
 import io.diveni.backend.model.TokenIdentifier;
 import io.diveni.backend.model.UserStory;
+import io.diveni.backend.service.projectmanagementproviders.IssueImport;
 import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviderOAuth2;
 import lombok.Getter;
 import lombok.val;
 import org.apache.tomcat.util.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -21,17 +24,18 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Service
 public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
@@ -45,6 +49,7 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
   private static final String API_FIELD_TITLE = "System.Title";
   private static final String API_FIELD_DESCRIPTION = "System.Description";
   private static final String API_FIELD_ESTIMATION = "Microsoft.VSTS.Scheduling.StoryPoints";
+  private static final int WORK_ITEMS_BATCH_SIZE = 200;
 
   @Value("${AZURE_ORGANIZATION:#{null}}")
   private String ORGANIZATION;
@@ -52,6 +57,17 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
   @Value("${AZURE_CLIENTPAT:#{null}}")
   private String CLIENT_PAT;
 
+  @Autowired
+  @Qualifier("issueTrackerRestTemplate")
+  private RestTemplate restTemplate;
+
+  @Autowired
+  @Qualifier("issueImportExecutor")
+  private Executor issueImportExecutor;
+
+  @Value("${ISSUE_TRACKER_IMPORT_CONCURRENCY:4}")
+  private int IMPORT_CONCURRENCY = 4;
+
   @PostConstruct
   public void logConfig() {
     if (ORGANIZATION != null && CLIENT_PAT != null) {
@@ -77,7 +93,6 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
   public ResponseEntity<String> executeRequest(
       String url, HttpMethod method, String accessToken, Object body, MediaType contentType) {
     LOGGER.debug("--> executeRequest()");
-    RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory());
     HttpHeaders headers = new HttpHeaders();
     headers.setAccept(List.of(MediaType.APPLICATION_JSON));
     headers.setContentType(contentType);
@@ -115,7 +130,15 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
 
   @Override
   public List<UserStory> getIssues(String tokenIdentifier, String projectName) {
-    LOGGER.debug("--> getIssues(), projectName={}", projectName);
+    List<UserStory> userStories = new ArrayList<>();
+    importIssues(tokenIdentifier, projectName, (issues, total) -> userStories.addAll(issues));
+    return userStories;
+  }
+
+  @Override
+  public void importIssues(
+      String tokenIdentifier, String projectName, IssueImport.Listener listener) {
+    LOGGER.debug("--> importIssues(), projectName={}", projectName);
     Map<String, String> content = new HashMap<>();
     String query =
         "SELECT [System.Id] FROM WorkItems WHERE [System.TeamProject] = @project AND"
@@ -136,50 +159,17 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
       for (JsonNode issue : node.path("workItems")) {
         workItemIds.add(issue.get("id").asText());
       }
-      List<String> fieldList = new ArrayList<>();
-      Collections.addAll(fieldList, API_FIELD_TITLE, API_FIELD_DESCRIPTION, API_FIELD_ESTIMATION);
-      Map<String, List<String>> contentDetailed = new HashMap<>();
-
-      contentDetailed.put("ids", workItemIds);
-      contentDetailed.put("fields", fieldList);
-      ResponseEntity<String> responseDetailedList =
-          executeRequest(
-              String.format(AZURE_DEVOPS_API, ORGANIZATION + "/" + projectName)
-                  + "wit/workitemsbatch?api-version=5.1",
-              HttpMethod.POST,
-              accessTokens.get(tokenIdentifier),
-              contentDetailed);
-      JsonNode detailedNode = new ObjectMapper().readTree(responseDetailedList.getBody());
-      List<UserStory> userStories = new ArrayList<>();
-      for (JsonNode detailedIssue : detailedNode.path("value")) {
-        JsonNode fields = detailedIssue.get("fields");
-
-        String estimation =
-            fields.hasNonNull(API_FIELD_ESTIMATION)
-                ? String.valueOf(fields.get(API_FIELD_ESTIMATION).asDouble())
-                : null;
-        if (estimation != null && estimation.endsWith(".0")) {
-          estimation = estimation.substring(0, estimation.length() - 2);
-        }
-        String description =
-            fields.hasNonNull(API_FIELD_DESCRIPTION)
-                ? fields.get(API_FIELD_DESCRIPTION).textValue().replaceAll("\\<[^>]*>", "")
-                : "";
-        description =
-            description.length() > 0
-                ? description.substring(0, description.length() - 1)
-                : description;
-        userStories.add(
-            new UserStory(
-                detailedIssue.get("id").asText(),
-                fields.get(API_FIELD_TITLE).textValue(),
-                description,
-                estimation,
-                false));
+      // the batch endpoint returns at most 200 work items per request
+      List<IssueImport.Page> pages = new ArrayList<>();
+      for (int from = 0; from < workItemIds.size(); from += WORK_ITEMS_BATCH_SIZE) {
+        List<String> batch =
+            workItemIds.subList(from, Math.min(from + WORK_ITEMS_BATCH_SIZE, workItemIds.size()));
+        pages.add(() -> getWorkItems(tokenIdentifier, projectName, batch));
       }
+      IssueImport.fetchPages(
+          pages, workItemIds.size(), listener, issueImportExecutor, IMPORT_CONCURRENCY);
       accessTokenToProjectId.put(tokenIdentifier, projectName);
-      LOGGER.debug("<-- getIssues()");
-      return userStories;
+      LOGGER.debug("<-- importIssues()");
     } catch (Exception e) {
       LOGGER.error("Failed to get projects!", e);
       throw new ResponseStatusException(
@@ -187,6 +177,52 @@ public class AzureDevOpsService implements ProjectManagementProviderOAuth2 {
     }
   }
 
+  private List<UserStory> getWorkItems(
+      String tokenIdentifier, String projectName, List<String> workItemIds) throws IOException {
+    List<String> fieldList = new ArrayList<>();
+    Collections.addAll(fieldList, API_FIELD_TITLE, API_FIELD_DESCRIPTION, API_FIELD_ESTIMATION);
+    Map<String, List<String>> contentDetailed = new HashMap<>();
+
+    contentDetailed.put("ids", workItemIds);
+    contentDetailed.put("fields", fieldList);
+    ResponseEntity<String> responseDetailedList =
+        executeRequest(
+            String.format(AZURE_DEVOPS_API, ORGANIZATION + "/" + projectName)
+                + "wit/workitemsbatch?api-version=5.1",
+            HttpMethod.POST,
+            accessTokens.get(tokenIdentifier),
+            contentDetailed);
+    JsonNode detailedNode = new ObjectMapper().readTree(responseDetailedList.getBody());
+    List<UserStory> userStories = new ArrayList<>();
+    for (JsonNode detailedIssue : detailedNode.path("value")) {
+      JsonNode fields = detailedIssue.get("fields");
+
+      String estimation =
+          fields.hasNonNull(API_FIELD_ESTIMATION)
+              ? String.valueOf(fields.get(API_FIELD_ESTIMATION).asDouble())
+              : null;
+      if (estimation != null && estimation.endsWith(".0")) {
+        estimation = estimation.substring(0, estimation.length() - 2);
+      }
+      String description =
+          fields.hasNonNull(API_FIELD_DESCRIPTION)
+              ? fields.get(API_FIELD_DESCRIPTION).textValue().replaceAll("\\<[^>]*>", "")
+              : "";
+      description =
+          description.length() > 0
+              ? description.substring(0, description.length() - 1)
+              : description;
+      userStories.add(
+          new UserStory(
+              detailedIssue.get("id").asText(),
+              fields.get(API_FIELD_TITLE).textValue(),
+              description,
+              estimation,
+              false));
+    }
+    return userStories;
+  }
+
   @Override
   public void updateIssue(String tokenIdentifier, UserStory story) {
     LOGGER.debug("--> updateIssue(), storyID={}", story.getId());
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,9 +21,13 @@ import io.diveni.backend.Utils;
 import io.diveni.backend.model.Project;
 import io.diveni.backend.model.TokenIdentifier;
 import io.diveni.backend.model.UserStory;
+import io.diveni.backend.service.projectmanagementproviders.IssueImport;
+import io.diveni.backend.service.projectmanagementproviders.JiraSearchPage;
 import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviderOAuth2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -47,7 +53,7 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
   private static final String JIRA_OAUTH_URL = "https://auth.atlassian.com/oauth";
   private static final String JIRA_HOME = "https://api.atlassian.com/ex/jira/%s/rest/api/";
   private boolean serviceEnabled = false;
-  @Getter private final Map<String, String> accessTokens = new HashMap<>();
+  @Getter private final Map<String, JiraCloudToken> accessTokens = new ConcurrentHashMap<>();
 
   @Value("${JIRA_CLOUD_CLIENTID:#{null}}")
   private String CLIENT_ID;
@@ -61,6 +67,17 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
   @Value("${JIRA_CLOUD_AUTHORIZE_URL:#{null}}")
   private String JIRA_CLOUD_AUTHORIZE_URL;
 
+  @Autowired
+  @Qualifier("issueTrackerRestTemplate")
+  private RestTemplate restTemplate;
+
+  @Autowired
+  @Qualifier("issueImportExecutor")
+  private Executor issueImportExecutor;
+
+  @Value("${ISSUE_TRACKER_IMPORT_CONCURRENCY:4}")
+  private int IMPORT_CONCURRENCY = 4;
+
   @PostConstruct
   public void setupAndLogConfig() {
     if (CLIENT_ID != null
@@ -87,8 +104,28 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
     return JIRA_CLOUD_AUTHORIZE_URL;
   }
 
-  static String getCloudID(String accessToken) {
-    LOGGER.debug("--> getCloudID()");
+  /**
+   * Cloud ID of the site the token grants access to. It is requested once per token and kept in
+   * the token store until the token is removed.
+   */
+  String getCloudID(String tokenIdentifier) {
+    JiraCloudToken token = accessTokens.get(tokenIdentifier);
+    if (token == null) {
+      return requestCloudID(null);
+    }
+    if (token.getCloudID() != null) {
+      return token.getCloudID();
+    }
+    String cloudID = requestCloudID(token.getAccessToken());
+    if (cloudID != null) {
+      // a token removed in the meantime is not stored again
+      accessTokens.replace(tokenIdentifier, token, token.withCloudID(cloudID));
+    }
+    return cloudID;
+  }
+
+  String requestCloudID(String accessToken) {
+    LOGGER.debug("--> requestCloudID()");
     String accessibleResourcesURL = "https://api.atlassian.com/oauth/token/accessible-resources";
     ResponseEntity<String> response =
         executeRequest(accessibleResourcesURL, HttpMethod.GET, accessToken, null);
@@ -96,11 +133,11 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
       ObjectNode[] node = new ObjectMapper().readValue(response.getBody(), ObjectNode[].class);
       for (ObjectNode objectNode : node) {
         if (objectNode.has("id")) {
-          LOGGER.debug("<-- getCloudID()");
+          LOGGER.debug("<-- requestCloudID()");
           return objectNode.get("id").asText();
         }
       }
-      LOGGER.debug("<-- getCloudID(), CloudID not found");
+      LOGGER.debug("<-- requestCloudID(), CloudID not found");
       return null;
     } catch (Exception e) {
       LOGGER.error("Failed to get cloud id!", e);
@@ -109,10 +146,9 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
     }
   }
 
-  static ResponseEntity<String> executeRequest(
+  ResponseEntity<String> executeRequest(
       String url, HttpMethod method, String accessToken, Object body) {
     LOGGER.debug("--> executeRequest()");
-    RestTemplate restTemplate = new RestTemplate();
     HttpHeaders headers = new HttpHeaders();
     headers.setAccept(List.of(MediaType.APPLICATION_JSON));
     headers.add("Authorization", "Bearer " + accessToken);
@@ -124,7 +160,6 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
   @Override
   public TokenIdentifier getAccessToken(String authorizationCode, String origin) {
     LOGGER.debug("--> getAccessToken()");
-    RestTemplate restTemplate = new RestTemplate();
     String credentials = CLIENT_ID + ":" + CLIENT_SECRET;
     String encodedCredentials = new String(Base64.encodeBase64(credentials.getBytes()));
 
@@ -148,7 +183,7 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
       node = mapper.readTree(response.getBody());
       String accessToken = node.path("access_token").asText();
       val id = Utils.generateRandomID();
-      accessTokens.put(id, accessToken);
+      accessTokens.put(id, new JiraCloudToken(accessToken));
       LOGGER.debug("<-- getAccessToken()");
       return new TokenIdentifier(id);
     } catch (Exception e) {
@@ -161,8 +196,8 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
   @Override
   public List<Project> getProjects(String tokenIdentifier) {
     LOGGER.debug("--> getProjects()");
-    val accessToken = accessTokens.get(tokenIdentifier);
-    String cloudID = getCloudID(accessToken);
+    String cloudID = getCloudID(tokenIdentifier);
+    val accessToken = getStoredAccessToken(tokenIdentifier);
     try {
       List<Project> projects = new ArrayList<>();
       ResponseEntity<String> response =
@@ -187,40 +222,33 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
 
   @Override
   public List<UserStory> getIssues(String tokenIdentifier, String projectName) {
-    LOGGER.debug("--> getIssues(), projectName={}", projectName);
-    String cloudID = getCloudID(accessTokens.get(tokenIdentifier));
-    ResponseEntity<String> response =
-        executeRequest(
-            String.format(getJiraUrl(), cloudID)
-                + "/search?jql=project='"
-                + projectName
-                + "' order by rank&fields=summary,description,"
-                + ESTIMATION_FIELD,
-            HttpMethod.GET,
-            accessTokens.get(tokenIdentifier),
-            null);
+    List<UserStory> userStories = new ArrayList<>();
+    importIssues(tokenIdentifier, projectName, (issues, total) -> userStories.addAll(issues));
+    return userStories;
+  }
+
+  @Override
+  public void importIssues(
+      String tokenIdentifier, String projectName, IssueImport.Listener listener) {
+    LOGGER.debug("--> importIssues(), projectName={}", projectName);
+    String cloudID = getCloudID(tokenIdentifier);
+    String accessToken = getStoredAccessToken(tokenIdentifier);
+    String url =
+        String.format(getJiraUrl(), cloudID)
+            + "/search?jql=project='"
+            + projectName
+            + "' order by rank&fields=summary,description,"
+            + ESTIMATION_FIELD
+            + "&maxResults="
+            + JiraSearchPage.PAGE_SIZE
+            + "&startAt=";
     try {
-      List<UserStory> userStories = new ArrayList<>();
-      JsonNode node = new ObjectMapper().readTree(response.getBody());
-      for (JsonNode issue : node.path("issues")) {
-        val fields = issue.get("fields");
-        String estimation =
-            fields.get(ESTIMATION_FIELD).isNull()
-                ? null
-                : String.valueOf(fields.get(ESTIMATION_FIELD).asDouble());
-        if (estimation != null && estimation.endsWith(".0")) {
-          estimation = estimation.substring(0, estimation.length() - 2);
-        }
-        userStories.add(
-            new UserStory(
-                issue.get("id").textValue(),
-                fields.get("summary").textValue(),
-                fields.get("description").textValue(),
-                estimation,
-                false));
-      }
-      LOGGER.debug("<-- getIssues()");
-      return userStories;
+      JiraSearchPage.fetchAll(
+          startAt -> searchIssues(url + startAt, accessToken),
+          listener,
+          issueImportExecutor,
+          IMPORT_CONCURRENCY);
+      LOGGER.debug("<-- importIssues()");
     } catch (Exception e) {
       LOGGER.error("Failed to get issues!", e);
       throw new ResponseStatusException(
@@ -228,10 +256,22 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
     }
   }
 
+  /** Requests a page of a search, the response is parsed while it is read. */
+  JiraSearchPage searchIssues(String url, String accessToken) {
+    return restTemplate.execute(
+        url,
+        HttpMethod.GET,
+        request -> {
+          request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+          request.getHeaders().add("Authorization", "Bearer " + accessToken);
+        },
+        response -> JiraSearchPage.read(response.getBody(), ESTIMATION_FIELD));
+  }
+
   @Override
   public void updateIssue(String tokenIdentifier, UserStory story) {
     LOGGER.debug("--> updateIssue(), storyID={}", story.getId());
-    String cloudID = getCloudID(accessTokens.get(tokenIdentifier));
+    String cloudID = getCloudID(tokenIdentifier);
     Map<String, Map<String, Object>> content = new HashMap<>();
     Map<String, Object> fields = new HashMap<>();
     fields.put("summary", story.getTitle());
@@ -250,7 +290,7 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
       executeRequest(
           String.format(getJiraUrl(), cloudID) + "/issue/" + story.getId(),
           HttpMethod.PUT,
-          accessTokens.get(tokenIdentifier),
+          getStoredAccessToken(tokenIdentifier),
           content);
       LOGGER.debug("<-- updateIssue()");
     } catch (Exception e) {
@@ -264,11 +304,11 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
   public void deleteIssue(String tokenIdentifier, String issueID) {
     LOGGER.debug("--> deleteIssue(), issueID={}", issueID);
     try {
-      String cloudID = getCloudID(accessTokens.get(tokenIdentifier));
+      String cloudID = getCloudID(tokenIdentifier);
       executeRequest(
           String.format(getJiraUrl(), cloudID) + "/issue/" + issueID,
           HttpMethod.DELETE,
-          accessTokens.get(tokenIdentifier),
+          getStoredAccessToken(tokenIdentifier),
           null);
       LOGGER.debug("<-- deleteIssue()");
     } catch (Exception e) {
@@ -295,6 +335,11 @@ public class JiraCloudService implements ProjectManagementProviderOAuth2 {
     return null;
   }
 
+  private String getStoredAccessToken(String tokenIdentifier) {
+    JiraCloudToken token = accessTokens.get(tokenIdentifier);
+    return token != null ? token.getAccessToken() : null;
+  }
+
   private String getJiraUrl() {
     return JIRA_HOME + JIRA_CLOUD_API_VERSION;
   }
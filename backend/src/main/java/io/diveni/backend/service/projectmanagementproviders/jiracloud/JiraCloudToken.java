@@ -0,0 +1,31 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.projectmanagementproviders.jiracloud;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Access token of a Jira Cloud user together with the cloud ID of the site it grants access to.
+ * The cloud ID is resolved on first use and stored with a new instance, so removing the token from
+ * the store drops it as well.
+ */
+@Getter
+@RequiredArgsConstructor
+class JiraCloudToken {
+
+  private final String accessToken;
+
+  private final String cloudID;
+
+  JiraCloudToken(String accessToken) {
+    this(accessToken, null);
+  }
+
+  JiraCloudToken withCloudID(String cloudID) {
+    return new JiraCloudToken(accessToken, cloudID);
+  }
+}
@@ -8,6 +8,7 @@ package io.diveni.backend.service.projectmanagementproviders.jiraserver;
 import com.google.api.client.auth.oauth.OAuthAuthorizeTemporaryTokenUrl;
 import com.google.api.client.auth.oauth.OAuthCredentialsResponse;
 import com.google.api.client.auth.oauth.OAuthParameters;
+import com.google.api.client.http.HttpTransport;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
@@ -19,9 +20,9 @@ public class JiraOAuthClient {
   private final JiraOAuthTokenFactory oAuthGetAccessTokenFactory;
   private final String authorizationUrl;
 
-  public JiraOAuthClient(String jiraBaseUrl) throws Exception {
+  public JiraOAuthClient(String jiraBaseUrl, HttpTransport transport) throws Exception {
     this.jiraBaseUrl = jiraBaseUrl;
-    this.oAuthGetAccessTokenFactory = new JiraOAuthTokenFactory(this.jiraBaseUrl);
+    this.oAuthGetAccessTokenFactory = new JiraOAuthTokenFactory(this.jiraBaseUrl, transport);
     authorizationUrl = jiraBaseUrl + "/plugins/servlet/oauth/authorize";
   }
 
@@ -6,7 +6,7 @@
 package io.diveni.backend.service.projectmanagementproviders.jiraserver;
 
 import com.google.api.client.auth.oauth.OAuthRsaSigner;
-import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.util.Base64;
 
 import java.security.KeyFactory;
@@ -18,10 +18,12 @@ import java.security.spec.PKCS8EncodedKeySpec;
 public class JiraOAuthTokenFactory {
   protected final String accessTokenUrl;
   protected final String requestTokenUrl;
+  private final HttpTransport transport;
 
-  public JiraOAuthTokenFactory(String jiraBaseUrl) {
+  public JiraOAuthTokenFactory(String jiraBaseUrl, HttpTransport transport) {
     this.accessTokenUrl = jiraBaseUrl + "/plugins/servlet/oauth/access-token";
     requestTokenUrl = jiraBaseUrl + "/plugins/servlet/oauth/request-token";
+    this.transport = transport;
   }
 
   /**
@@ -42,7 +44,7 @@ public class JiraOAuthTokenFactory {
     JiraOAuthGetAccessToken accessToken = new JiraOAuthGetAccessToken(accessTokenUrl);
     accessToken.consumerKey = consumerKey;
     accessToken.signer = getOAuthRsaSigner(privateKey);
-    accessToken.transport = new ApacheHttpTransport();
+    accessToken.transport = transport;
     accessToken.verifier = secret;
     accessToken.temporaryToken = tmpToken;
     return accessToken;
@@ -65,7 +67,7 @@ public class JiraOAuthTokenFactory {
     JiraOAuthGetAccessToken accessToken = new JiraOAuthGetAccessToken(accessTokenUrl);
     accessToken.consumerKey = consumerKey;
     accessToken.signer = getOAuthRsaSigner(privateKey);
-    accessToken.transport = new ApacheHttpTransport();
+    accessToken.transport = transport;
     accessToken.temporaryToken = tmpToken;
     return accessToken;
   }
@@ -86,7 +88,7 @@ public class JiraOAuthTokenFactory {
         new JiraOAuthGetTemporaryToken(requestTokenUrl);
     oAuthGetTemporaryToken.consumerKey = consumerKey;
     oAuthGetTemporaryToken.signer = getOAuthRsaSigner(privateKey);
-    oAuthGetTemporaryToken.transport = new ApacheHttpTransport();
+    oAuthGetTemporaryToken.transport = transport;
     oAuthGetTemporaryToken.callback = "oob";
     return oAuthGetTemporaryToken;
   }
@@ -6,10 +6,12 @@
 package io.diveni.backend.service.projectmanagementproviders.jiraserver;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,7 +23,7 @@ import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpResponse;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.gson.GsonFactory;
 
@@ -32,12 +34,16 @@ import io.diveni.backend.model.TokenIdentifier;
 import io.diveni.backend.model.UserStory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import io.diveni.backend.controller.ErrorMessages;
+import io.diveni.backend.service.projectmanagementproviders.IssueImport;
+import io.diveni.backend.service.projectmanagementproviders.JiraSearchPage;
 import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviderOAuth1;
 import lombok.Getter;
 import lombok.val;
@@ -67,6 +73,24 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
   @Value("${JIRA_SERVER_RANKNAME:RANK}")
   private String RANK_NAME;
 
+  // same limits as the pool of the transport, see HttpClientConfig
+  @Value("${ISSUE_TRACKER_CONNECT_TIMEOUT_MS:5000}")
+  private int CONNECT_TIMEOUT_MS;
+
+  @Value("${ISSUE_TRACKER_READ_TIMEOUT_MS:30000}")
+  private int READ_TIMEOUT_MS;
+
+  @Autowired
+  @Qualifier("issueTrackerHttpTransport")
+  private HttpTransport httpTransport;
+
+  @Autowired
+  @Qualifier("issueImportExecutor")
+  private Executor issueImportExecutor;
+
+  @Value("${ISSUE_TRACKER_IMPORT_CONCURRENCY:4}")
+  private int IMPORT_CONCURRENCY = 4;
+
   @PostConstruct
   public void setupAndLogConfig() {
     if (JIRA_HOME != null
@@ -99,11 +123,13 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
    * @return
    * @throws IOException
    */
-  private static HttpResponse getResponseFromUrl(
+  private HttpResponse getResponseFromUrl(
       OAuthParameters parameters, GenericUrl jiraUrl, String requestMethod, HttpContent content)
       throws IOException {
-    HttpRequestFactory requestFactory = new NetHttpTransport().createRequestFactory(parameters);
+    HttpRequestFactory requestFactory = httpTransport.createRequestFactory(parameters);
     HttpRequest request = requestFactory.buildRequest(requestMethod, jiraUrl, content);
+    request.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    request.setReadTimeout(READ_TIMEOUT_MS);
     return request.execute();
   }
 
@@ -113,7 +139,8 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
     JiraRequestToken jiraRequestToken = new JiraRequestToken();
 
     try {
-      JiraOAuthTokenFactory oAuthGetAccessTokenFactory = new JiraOAuthTokenFactory(JIRA_HOME);
+      JiraOAuthTokenFactory oAuthGetAccessTokenFactory =
+          new JiraOAuthTokenFactory(JIRA_HOME, httpTransport);
 
       JiraOAuthGetTemporaryToken temporaryToken =
           oAuthGetAccessTokenFactory.getTemporaryToken(CONSUMER_KEY, PRIVATE_KEY);
@@ -139,7 +166,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
   public TokenIdentifier getAccessToken(String verificationCode, String requestToken) {
     LOGGER.debug("--> getAccessToken()");
     try {
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       val accessToken =
           jiraOAuthClient.getAccessToken(requestToken, verificationCode, CONSUMER_KEY, PRIVATE_KEY);
       val id = Utils.generateRandomID();
@@ -159,7 +186,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
     try {
       List<Project> projects = new ArrayList<>();
       val accessToken = accessTokens.get(tokenIdentifier);
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       OAuthParameters parameters =
           jiraOAuthClient.getParameters(accessToken, CONSUMER_KEY, PRIVATE_KEY);
       HttpResponse response =
@@ -182,58 +209,48 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
 
   @Override
   public List<UserStory> getIssues(String tokenIdentifier, String projectName) {
-    LOGGER.debug("--> getIssues(), projectName={}", projectName);
+    List<UserStory> userStories = new ArrayList<>();
+    importIssues(tokenIdentifier, projectName, (issues, total) -> userStories.addAll(issues));
+    return userStories;
+  }
+
+  @Override
+  public void importIssues(
+      String tokenIdentifier, String projectName, IssueImport.Listener listener) {
+    LOGGER.debug("--> importIssues(), projectName={}", projectName);
     try {
-      List<UserStory> userStories = new ArrayList<>();
       val accessToken = accessTokens.get(tokenIdentifier);
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
-      OAuthParameters parameters =
-          jiraOAuthClient.getParameters(accessToken, CONSUMER_KEY, PRIVATE_KEY);
-      HttpResponse response =
-          getResponseFromUrl(
-              parameters,
-              new GenericUrl(
-                  getJiraUrl()
-                      + "/search?jql=project='"
-                      + projectName
-                      + "' AND resolution = Unresolved "
-                      + " AND type != Sub-Task AND type != Sub-Bug "
-                      + "ORDER BY "
-                      + RANK_NAME
-                      + " ASC, updated DESC"
-                      + "&fields=summary,description,"
-                      + ESTIMATION_FIELD
-                      + "&maxResults=1000"),
-              "GET",
-              null);
-      // The reply from the Jira API is no correct JSON, therefore [ and ] have to be
-      // added
-      val json = "[" + response.parseAsString() + "]";
-
-      ObjectNode[] node = new ObjectMapper().readValue(json, ObjectNode[].class);
-
-      for (ObjectNode objectNode : node) {
-        for (JsonNode jsonNode : objectNode.get("issues")) {
-          val fields = jsonNode.get("fields");
-          String estimation =
-              (fields.get(ESTIMATION_FIELD) == null || fields.get(ESTIMATION_FIELD).isNull())
-                  ? null
-                  : String.valueOf(fields.get(ESTIMATION_FIELD).asDouble());
-          if (estimation != null && estimation.endsWith(".0")) {
-            estimation = estimation.substring(0, estimation.length() - 2);
-          }
-          userStories.add(
-              new UserStory(
-                  jsonNode.get("id").textValue(),
-                  fields.get("summary").textValue(),
-                  fields.get("description").textValue(),
-                  estimation,
-                  false));
-        }
-      }
-
-      LOGGER.debug("<-- getIssues()");
-      return userStories;
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
+      String url =
+          getJiraUrl()
+              + "/search?jql=project='"
+              + projectName
+              + "' AND resolution = Unresolved "
+              + " AND type != Sub-Task AND type != Sub-Bug "
+              + "ORDER BY "
+              + RANK_NAME
+              + " ASC, updated DESC"
+              + "&fields=summary,description,"
+              + ESTIMATION_FIELD
+              + "&maxResults="
+              + JiraSearchPage.PAGE_SIZE
+              + "&startAt=";
+      JiraSearchPage.fetchAll(
+          startAt -> {
+            try {
+              // the parameters are signed per request, each page needs its own
+              OAuthParameters parameters =
+                  jiraOAuthClient.getParameters(accessToken, CONSUMER_KEY, PRIVATE_KEY);
+              return searchIssues(parameters, new GenericUrl(url + startAt));
+            } catch (GeneralSecurityException e) {
+              throw new IOException(e);
+            }
+          },
+          listener,
+          issueImportExecutor,
+          IMPORT_CONCURRENCY);
+
+      LOGGER.debug("<-- importIssues()");
     } catch (Exception e) {
       LOGGER.error("Failed to get issues!", e);
       throw new ResponseStatusException(
@@ -241,6 +258,17 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
     }
   }
 
+  /** Requests a page of a search, the response is parsed while it is read. */
+  private JiraSearchPage searchIssues(OAuthParameters parameters, GenericUrl url)
+      throws IOException {
+    HttpResponse response = getResponseFromUrl(parameters, url, "GET", null);
+    try {
+      return JiraSearchPage.read(response.getContent(), ESTIMATION_FIELD);
+    } finally {
+      response.disconnect();
+    }
+  }
+
   @Override
   public void updateIssue(String tokenIdentifier, UserStory story) {
     LOGGER.debug("--> updateIssue(), storyID={}", story.getId());
@@ -259,7 +287,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
     }
     content.put("fields", fields);
     try {
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       OAuthParameters parameters =
           jiraOAuthClient.getParameters(
               accessTokens.get(tokenIdentifier), CONSUMER_KEY, PRIVATE_KEY);
@@ -288,7 +316,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
     fields.put("summary", story.getTitle());
     content.put("fields", fields);
     try {
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       OAuthParameters parameters =
           jiraOAuthClient.getParameters(
               accessTokens.get(tokenIdentifier), CONSUMER_KEY, PRIVATE_KEY);
@@ -313,7 +341,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
   public void deleteIssue(String tokenIdentifier, String issueID) {
     LOGGER.debug("--> deleteIssue(), issueID={}", issueID);
     try {
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       OAuthParameters parameters =
           jiraOAuthClient.getParameters(
               accessTokens.get(tokenIdentifier), CONSUMER_KEY, PRIVATE_KEY);
@@ -333,7 +361,7 @@ public class JiraServerService implements ProjectManagementProviderOAuth1 {
   public String getCurrentUsername(String tokenIdentifier) {
     LOGGER.debug("--> getCurrentUsername(), tokenIdentifier={}", tokenIdentifier);
     try {
-      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME);
+      JiraOAuthClient jiraOAuthClient = new JiraOAuthClient(JIRA_HOME, httpTransport);
       OAuthParameters parameters =
           jiraOAuthClient.getParameters(
               accessTokens.get(tokenIdentifier), CONSUMER_KEY, PRIVATE_KEY);
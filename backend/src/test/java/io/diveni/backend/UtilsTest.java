@@ -25,4 +25,14 @@ public class UtilsTest {
 
     assertEquals(result, timestamp);
   }
+
+  @Test
+  public void getEpochMillisFromString_readsISOTimestamp() {
+    val timestamp = "2022-01-18T16:52:50.823Z";
+
+    val result = Utils.getEpochMillisFromString(timestamp);
+
+    assertEquals(Instant.parse(timestamp).toEpochMilli(), result);
+    assertEquals(timestamp, Utils.getTimestampISO8601(new Date(result)));
+  }
 }
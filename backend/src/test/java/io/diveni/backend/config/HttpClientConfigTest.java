@@ -0,0 +1,36 @@
+package io.diveni.backend.config;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest
+public class HttpClientConfigTest {
+
+  @Autowired private HttpTransport httpTransport;
+
+  @Autowired private RestTemplate restTemplate;
+
+  @Autowired
+  @Qualifier("issueImportExecutor")
+  private ThreadPoolTaskExecutor issueImportExecutor;
+
+  @Test
+  public void context_createsIssueTrackerClients() throws Exception {
+    Assertions.assertInstanceOf(ApacheHttpTransport.class, httpTransport);
+    Assertions.assertNotNull(restTemplate);
+    Assertions.assertEquals(4, issueImportExecutor.getMaxPoolSize());
+
+    HttpRequest request =
+        httpTransport.createRequestFactory().buildGetRequest(new GenericUrl("http://localhost"));
+    Assertions.assertEquals("GET", request.getRequestMethod());
+  }
+}
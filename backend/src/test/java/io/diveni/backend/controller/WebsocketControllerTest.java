@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +48,7 @@ import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
 import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 import org.springframework.web.socket.sockjs.client.SockJsClient;
@@ -153,10 +155,8 @@ public class WebsocketControllerTest {
 
   @AfterEach
   public void cleanUpEach() throws Exception {
-    val sessionPrincipalsField = WebSocketService.class.getDeclaredField("sessionPrincipalList");
-    sessionPrincipalsField.setAccessible(true);
-    val sessionPrincipals = List.of();
-    sessionPrincipalsField.set(webSocketService, sessionPrincipals);
+    ((Map<?, ?>) ReflectionTestUtils.getField(webSocketService, "sessionPrincipals")).clear();
+    ((Map<?, ?>) ReflectionTestUtils.getField(webSocketService, "sessionIDByMemberID")).clear();
     sessionRepo.deleteAll();
   }
 
@@ -181,6 +181,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     val adminPrincipal = new AdminPrincipal(sessionID, adminID);
     StompSession session = getAdminSession(sessionID, adminID);
@@ -220,6 +221,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     val memberPrincipal = new MemberPrincipal(sessionID, memberID);
@@ -267,6 +269,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getMemberSession(sessionID, memberID);
@@ -327,6 +330,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     val adminPrincipal = new AdminPrincipal(sessionID, adminID);
     webSocketService.setAdminUser(adminPrincipal);
@@ -362,6 +366,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     val adminPrincipal = new AdminPrincipal(sessionID, adminID);
     val memberPrincipal = new MemberPrincipal(sessionID, memberID);
@@ -403,6 +408,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     val adminPrincipal = new AdminPrincipal(sessionID, adminID);
     val memberPrincipal = new MemberPrincipal(sessionID, memberID2);
@@ -446,6 +452,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     val adminPrincipal = new AdminPrincipal(sessionID, adminID);
     val memberPrincipal = new MemberPrincipal(sessionID, memberID2);
@@ -487,6 +494,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getMemberSession(sessionID, memberID);
@@ -526,6 +534,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getMemberSession(sessionID, memberID);
@@ -565,6 +574,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getMemberSession(sessionID, memberID);
@@ -605,6 +615,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getMemberSession(sessionID, memberID);
@@ -646,6 +657,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null);
     sessionRepo.save(oldSession);
     webSocketService.setAdminUser(adminPrincipal);
@@ -685,6 +697,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null);
     sessionRepo.save(oldSession);
     webSocketService.setAdminUser(adminPrincipal);
@@ -724,7 +737,8 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
-            adminVote);
+            adminVote,
+            null);
     sessionRepo.save(oldSession);
     webSocketService.setAdminUser(adminPrincipal);
     StompSession adminSession = getAdminSession(sessionID, adminID);
@@ -767,7 +781,8 @@ public class WebsocketControllerTest {
             null,
             null,
             true,
-            adminVote));
+            adminVote,
+            null));
     webSocketService.setAdminUser(adminPrincipal);
     StompSession session = getAdminSession(sessionID, adminID);
     val vote = "5";
@@ -805,6 +820,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null);
     sessionRepo.save(oldSession);
     webSocketService.setAdminUser(adminPrincipal);
@@ -843,6 +859,7 @@ public class WebsocketControllerTest {
             null,
             null,
             false,
+            null,
             null);
     sessionRepo.save(oldSession);
     webSocketService.setAdminUser(adminPrincipal);
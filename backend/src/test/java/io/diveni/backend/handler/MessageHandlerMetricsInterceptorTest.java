@@ -0,0 +1,121 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.time.Duration;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.jfr.MessageHandledEvent;
+import io.diveni.backend.principals.MemberPrincipal;
+import io.diveni.backend.service.DiveniMetrics;
+import io.diveni.backend.service.WebSocketService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import lombok.val;
+
+public class MessageHandlerMetricsInterceptorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Spy private DiveniMetrics metrics = new DiveniMetrics(registry);
+
+  @Mock WebSocketService webSocketService;
+
+  @Mock MessageChannel channel;
+
+  @Mock SimpAnnotationMethodMessageHandler annotationHandler;
+
+  @InjectMocks private MessageHandlerMetricsInterceptor interceptor;
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private static Message<byte[]> message(StompCommand command, String destination) {
+    val accessor = StompHeaderAccessor.create(command);
+    accessor.setDestination(destination);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  @Test
+  public void handledMessage_isTimedByDestination() {
+    val message = message(StompCommand.SEND, "/ws/vote");
+
+    interceptor.beforeHandle(message, channel, annotationHandler);
+    interceptor.afterMessageHandled(message, channel, annotationHandler, null);
+
+    val timer =
+        registry
+            .find(DiveniMetrics.HANDLER_TIMER)
+            .tags("destination", "/ws/vote", "exception", "none")
+            .timer();
+    assertEquals(1, timer.count());
+  }
+
+  @Test
+  public void handledMessage_isRecordedAsFlightRecorderEvent() throws Exception {
+    val sessionID = Utils.generateRandomID();
+    when(webSocketService.getLiveMemberCount(sessionID)).thenReturn(1);
+    val accessor = StompHeaderAccessor.create(StompCommand.SEND);
+    accessor.setDestination("/ws/vote");
+    accessor.setUser(new MemberPrincipal(sessionID, Utils.generateRandomID()));
+    val message = MessageBuilder.createMessage(new byte[12], accessor.getMessageHeaders());
+    val file = Files.createTempFile("handler", ".jfr");
+
+    try (Recording recording = new Recording()) {
+      recording.enable(MessageHandledEvent.class).withThreshold(Duration.ZERO);
+      recording.start();
+      interceptor.beforeHandle(message, channel, annotationHandler);
+      interceptor.afterMessageHandled(message, channel, annotationHandler, null);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    val events = RecordingFile.readAllEvents(file);
+    Files.delete(file);
+    assertEquals(1, events.size());
+    assertEquals(sessionID, events.get(0).getString("sessionID"));
+    assertEquals("/ws/vote", events.get(0).getString("destination"));
+    assertEquals(1, events.get(0).getInt("members"));
+    assertEquals(12, events.get(0).getInt("payloadBytes"));
+  }
+
+  @Test
+  public void otherHandlersAndSubscriptions_areNotTimed() {
+    val send = message(StompCommand.SEND, "/ws/vote");
+    val brokerHandler = mock(MessageHandler.class);
+    interceptor.beforeHandle(send, channel, brokerHandler);
+    interceptor.afterMessageHandled(send, channel, brokerHandler, null);
+
+    val subscribe = message(StompCommand.SUBSCRIBE, "/updates/sessions/123/member");
+    interceptor.beforeHandle(subscribe, channel, annotationHandler);
+    interceptor.afterMessageHandled(subscribe, channel, annotationHandler, null);
+
+    assertNull(registry.find(DiveniMetrics.HANDLER_TIMER).timer());
+  }
+}
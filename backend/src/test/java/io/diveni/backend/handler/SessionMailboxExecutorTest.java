@@ -0,0 +1,162 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.principals.MemberPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import lombok.val;
+
+public class SessionMailboxExecutorTest {
+
+  private SessionMailboxExecutor executor;
+
+  @BeforeEach
+  public void initEach() {
+    executor = new SessionMailboxExecutor(4);
+    executor.initialize();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    executor.shutdown();
+  }
+
+  private MessageHandlingRunnable messageOf(String sessionID, Runnable handler) {
+    val accessor = SimpMessageHeaderAccessor.create();
+    accessor.setUser(new MemberPrincipal(sessionID, Utils.generateRandomID()));
+    val message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    return new MessageHandlingRunnable() {
+      @Override
+      public Message<?> getMessage() {
+        return message;
+      }
+
+      @Override
+      public MessageHandler getMessageHandler() {
+        return m -> handler.run();
+      }
+
+      @Override
+      public void run() {
+        handler.run();
+      }
+    };
+  }
+
+  @Test
+  public void messagesOfOneSession_areHandledInOrderOneAtATime() throws Exception {
+    val sessionID = Utils.generateRandomID();
+    val handled = Collections.synchronizedList(new ArrayList<Integer>());
+    val running = new AtomicInteger();
+    val overlapped = new AtomicInteger();
+    val done = new CountDownLatch(200);
+
+    for (int i = 0; i < 200; i++) {
+      val index = i;
+      executor.execute(
+          messageOf(
+              sessionID,
+              () -> {
+                if (running.incrementAndGet() > 1) {
+                  overlapped.incrementAndGet();
+                }
+                handled.add(index);
+                running.decrementAndGet();
+                done.countDown();
+              }));
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(0, overlapped.get());
+    for (int i = 0; i < 200; i++) {
+      assertEquals(i, handled.get(i));
+    }
+  }
+
+  @Test
+  public void differentSessions_areHandledConcurrently() throws Exception {
+    val blocked = new CountDownLatch(1);
+    val otherHandled = new CountDownLatch(1);
+
+    executor.execute(
+        messageOf(
+            Utils.generateRandomID(),
+            () -> {
+              try {
+                blocked.await(5, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }));
+    executor.execute(messageOf(Utils.generateRandomID(), otherHandled::countDown));
+
+    assertTrue(otherHandled.await(5, TimeUnit.SECONDS));
+    blocked.countDown();
+  }
+
+  @Test
+  public void failingMessage_doesNotBlockMailbox() throws Exception {
+    val sessionID = Utils.generateRandomID();
+    val handled = new CountDownLatch(1);
+
+    executor.execute(
+        messageOf(
+            sessionID,
+            () -> {
+              throw new IllegalStateException("failed");
+            }));
+    executor.execute(messageOf(sessionID, handled::countDown));
+
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void mailboxDepth_countsQueuedMessages() throws Exception {
+    val sessionID = Utils.generateRandomID();
+    val blocked = new CountDownLatch(1);
+    val started = new CountDownLatch(1);
+    executor.execute(
+        sessionID,
+        () -> {
+          started.countDown();
+          try {
+            blocked.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    started.await(5, TimeUnit.SECONDS);
+    val handled = new CountDownLatch(1);
+    executor.execute(sessionID, () -> {});
+    executor.execute(sessionID, handled::countDown);
+
+    assertEquals(2, executor.getMailboxDepth(sessionID));
+    assertEquals(2, executor.getMailboxDepths().get(sessionID));
+    assertEquals(2, executor.getQueuedMessages());
+
+    blocked.countDown();
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+    assertEquals(0, executor.getMailboxDepth(sessionID));
+  }
+}
@@ -0,0 +1,225 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.handler;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionState;
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.principals.MemberPrincipal;
+import io.diveni.backend.service.DatabaseService;
+import io.diveni.backend.service.WebSocketService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import lombok.val;
+
+public class SessionTopicInterceptorTest {
+
+  @Mock DatabaseService databaseService;
+
+  @Mock MessageChannel channel;
+
+  @InjectMocks private SessionTopicInterceptor interceptor;
+
+  private final String memberID = Utils.generateRandomID();
+
+  private Session session;
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    session =
+        new Session(
+            new ObjectId(),
+            Utils.generateRandomID(),
+            Utils.generateRandomID(),
+            null,
+            null,
+            List.of(new Member(memberID, null, null, null, null)),
+            new HashMap<>(),
+            new ArrayList<>(),
+            SessionState.WAITING_FOR_MEMBERS,
+            null,
+            null,
+            null,
+            null,
+            false,
+            null,
+            null);
+    when(databaseService.getSessionByID(session.getSessionID())).thenReturn(Optional.of(session));
+    when(databaseService.getSessionByMemberID(memberID)).thenReturn(Optional.of(session));
+  }
+
+  private Message<byte[]> stompMessage(StompCommand command, String destination, Principal user) {
+    val accessor = StompHeaderAccessor.create(command);
+    accessor.setDestination(destination);
+    accessor.setUser(user);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private String topicOf(String sessionID) {
+    return WebSocketService.getSessionTopic(
+        sessionID, WebSocketService.MEMBERS_UPDATED_DESTINATION);
+  }
+
+  @Test
+  public void memberSubscribesToOwnSession_isAllowed() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            topicOf(session.getSessionID()),
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertSame(message, interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void adminSubscribesToOwnSession_isAllowed() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            topicOf(session.getSessionID()),
+            new AdminPrincipal(session.getSessionID(), session.getAdminID()));
+
+    assertSame(message, interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeToOtherSession_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            topicOf(Utils.generateRandomID()),
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeOfUnknownMember_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            topicOf(session.getSessionID()),
+            new MemberPrincipal(session.getSessionID(), Utils.generateRandomID()));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeWithWrongAdminID_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            topicOf(session.getSessionID()),
+            new AdminPrincipal(session.getSessionID(), Utils.generateRandomID()));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void clientSendToBroker_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SEND,
+            topicOf(session.getSessionID()),
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void clientSendToApplication_isAllowed() {
+    val message =
+        stompMessage(
+            StompCommand.SEND, "/ws/vote", new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertSame(message, interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeToUserDestination_isAllowed() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            "/users" + WebSocketService.MEMBER_UPDATES_DESTINATION,
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertSame(message, interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeToAllBroadcasts_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            "/updates/**",
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeToPatternOfOtherSessions_isRejected() {
+    val member = new MemberPrincipal(session.getSessionID(), memberID);
+    for (String destination :
+        List.of(
+            "/updates/*/" + Utils.generateRandomID() + "/membersUpdated",
+            "/updates/sessions/*/membersUpdated",
+            "/updates/sessions/" + session.getSessionID() + "/../*/membersUpdated",
+            "/updates/sessions/{sessionID}/membersUpdated",
+            "/updates/sessions/?" + session.getSessionID().substring(1) + "/membersUpdated",
+            "/users/updates/*")) {
+      val message = stompMessage(StompCommand.SUBSCRIBE, destination, member);
+
+      assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+    }
+  }
+
+  @Test
+  public void subscribeToOtherBrokerDestination_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            WebSocketService.MEMBERS_UPDATED_DESTINATION,
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+
+  @Test
+  public void subscribeToNodeDestination_isRejected() {
+    val message =
+        stompMessage(
+            StompCommand.SUBSCRIBE,
+            WebSocketService.USER_REGISTRY_DESTINATION,
+            new MemberPrincipal(session.getSessionID(), memberID));
+
+    assertThrows(MessagingException.class, () -> interceptor.preSend(message, channel));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import io.diveni.backend.Utils;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class EstimationStatisticsTest {
+
+  private static final Map<String, Integer> ORDINALS =
+      new SessionConfig(List.of("1", "2", "3", "5", "8", "?"), List.of(), null, null, null)
+          .getCardOrdinals();
+
+  private static Member memberWith(String estimation) {
+    return new Member(Utils.generateRandomID(), null, null, null, estimation);
+  }
+
+  @Test
+  public void of_computesStatistics() {
+    val members =
+        List.of(
+            memberWith("5"),
+            memberWith("2"),
+            memberWith("?"),
+            memberWith("3"),
+            memberWith("2"),
+            memberWith(null));
+
+    val result = EstimationStatistics.of(ORDINALS, members, Map.of(), "admin", null);
+
+    assertEquals(4, result.getVotes());
+    assertEquals("2", result.getLowest());
+    assertEquals("5", result.getHighest());
+    assertEquals("2", result.getMedian());
+    assertEquals("2", result.getMode());
+    assertFalse(result.isConsensus());
+    assertEquals(
+        List.of(members.get(1).getMemberID(), members.get(0).getMemberID()),
+        result.getHighlightedMemberIDs());
+  }
+
+  @Test
+  public void of_prefersMemberNotHighlightedForLongest() {
+    val members = List.of(memberWith("1"), memberWith("1"), memberWith("8"));
+    val memberVoted = Map.of(members.get(0).getMemberID(), 1, members.get(1).getMemberID(), 3);
+
+    val result = EstimationStatistics.of(ORDINALS, members, memberVoted, "admin", "8");
+
+    assertEquals(members.get(1).getMemberID(), result.getLowestMemberID());
+    assertEquals(members.get(2).getMemberID(), result.getHighestMemberID());
+    assertEquals(4, result.getVotes());
+  }
+
+  @Test
+  public void of_consensusHighlightsNobody() {
+    val members = List.of(memberWith("3"), memberWith("3"));
+
+    val result = EstimationStatistics.of(ORDINALS, members, Map.of(), "admin", "3");
+
+    assertTrue(result.isConsensus());
+    assertEquals("3", result.getMedian());
+    assertTrue(result.getHighlightedMemberIDs().isEmpty());
+  }
+
+  @Test
+  public void of_withoutVotes_isEmpty() {
+    val result = EstimationStatistics.of(ORDINALS, List.of(memberWith("?")), Map.of(), "a", "?");
+
+    assertEquals(0, result.getVotes());
+    assertNull(result.getLowest());
+    assertTrue(result.getHighlightedMemberIDs().isEmpty());
+  }
+}
@@ -47,6 +47,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val sameSession =
         new Session(
@@ -64,6 +65,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val otherSession =
         new Session(
@@ -81,6 +83,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
 
     assertEquals(session, sameSession);
@@ -113,6 +116,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val result = session.updateEstimation(member1.getMemberID(), vote);
 
@@ -148,7 +152,8 @@ public class SessionTest {
             null,
             null,
             false,
-            new AdminVote("10"));
+            new AdminVote("10"),
+            null);
 
     val result = session.resetEstimations();
 
@@ -177,6 +182,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val result = session.updateSessionState(newSessionState);
 
@@ -201,6 +207,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val date = new Date();
 
@@ -230,6 +237,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val memberID2 = Utils.generateRandomID();
     val member2 = new Member(memberID2, null, null, null, "5");
@@ -263,6 +271,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
 
     val result = session.removeMember(memberID1);
@@ -293,7 +302,8 @@ public class SessionTest {
             null,
             null,
             true,
-            new AdminVote("M"));
+            new AdminVote("M"),
+            null);
 
     val result = session.selectHighlightedMembers();
 
@@ -326,7 +336,8 @@ public class SessionTest {
             null,
             null,
             true,
-            new AdminVote("XS"));
+            new AdminVote("XS"),
+            null);
 
     val result = session.selectHighlightedMembers();
 
@@ -360,6 +371,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
 
     val result = session.selectHighlightedMembers();
@@ -396,6 +408,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
 
     val result = session.selectHighlightedMembers();
@@ -425,6 +438,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
 
     val result = session.resetCurrentHighlights();
@@ -450,6 +464,7 @@ public class SessionTest {
             null,
             null,
             false,
+            null,
             null);
     val timestamp = Utils.getTimestampISO8601(new Date());
 
@@ -476,6 +491,7 @@ public class SessionTest {
             Utils.getTimestampISO8601(new Date()),
             null,
             false,
+            null,
             null);
 
     val result = session.resetTimerTimestamp();
@@ -501,6 +517,7 @@ public class SessionTest {
             Utils.getTimestampISO8601(new Date()),
             LocalDate.of(2222, 12, 3),
             false,
+            null,
             null);
 
     assertEquals(LocalDate.of(2222, 12, 3), session.getCreationTime());
@@ -524,6 +541,7 @@ public class SessionTest {
             Utils.getTimestampISO8601(new Date()),
             null,
             false,
+            null,
             null);
 
     Session result = session.setHostVoting(true);
@@ -548,10 +566,56 @@ public class SessionTest {
             Utils.getTimestampISO8601(new Date()),
             null,
             false,
+            null,
             null);
 
     val result = session.setHostEstimation("10");
 
     assertEquals("10", result.getHostEstimation().getHostEstimation());
   }
+
+  @Test
+  public void toBuilder_appliesChangesLikeMutators() {
+    val member1 = new Member(Utils.generateRandomID(), null, null, null, "3");
+    val member2 = new Member(Utils.generateRandomID(), null, null, null, null);
+    val session =
+        new Session(
+            null,
+            null,
+            null,
+            null,
+            null,
+            List.of(member1, member2),
+            new HashMap<>(),
+            new ArrayList<>(),
+            SessionState.VOTING_FINISHED,
+            null,
+            null,
+            null,
+            null,
+            false,
+            new AdminVote("5"),
+            null);
+    val lastModified = new Date();
+
+    val result =
+        session
+            .toBuilder()
+            .sessionState(SessionState.START_VOTING)
+            .resetEstimations()
+            .updateEstimation(member2.getMemberID(), "8")
+            .lastModified(lastModified)
+            .build();
+
+    val expected =
+        session
+            .updateSessionState(SessionState.START_VOTING)
+            .resetEstimations()
+            .updateEstimation(member2.getMemberID(), "8")
+            .setLastModified(lastModified);
+    assertEquals(expected, result);
+    assertEquals(VoteTally.of(result.getMembers()), result.getVoteTally());
+    assertEquals(member2.getMemberID(), result.getMembers().get(1).getMemberID());
+    assertEquals("", result.getHostEstimation().getHostEstimation());
+  }
 }
@@ -0,0 +1,91 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.diveni.backend.Utils;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class VoteTallyTest {
+
+  private static Member memberWith(String estimation) {
+    return new Member(Utils.generateRandomID(), null, null, null, estimation);
+  }
+
+  private static Session sessionWith(List<Member> members) {
+    return new Session(
+        null,
+        Utils.generateRandomID(),
+        null,
+        null,
+        null,
+        members,
+        new HashMap<>(),
+        new ArrayList<>(),
+        SessionState.START_VOTING,
+        null,
+        null,
+        null,
+        null,
+        false,
+        null,
+        null);
+  }
+
+  @Test
+  public void of_countsVotes() {
+    val tally = VoteTally.of(List.of(memberWith("3"), memberWith("3"), memberWith(null)));
+
+    assertEquals(3, tally.getMembers());
+    assertEquals(2, tally.getVoted());
+    assertEquals(1, tally.getOutstanding());
+    assertEquals(Map.of("3", 2), tally.getHistogram());
+    assertFalse(tally.allVoted());
+  }
+
+  @Test
+  public void withVote_movesCount() {
+    val tally = VoteTally.of(List.of(memberWith("3"), memberWith(null)));
+
+    val result = tally.withVote("3", "5").withVote(null, "?");
+
+    assertEquals(Map.of("5", 1, "?", 1), result.getHistogram());
+    assertTrue(result.allVoted());
+  }
+
+  @Test
+  public void sessionChanges_keepTallyInLineWithMembers() {
+    val member1 = memberWith(null);
+    val member2 = memberWith(null);
+    val member3 = memberWith("8");
+    var session = sessionWith(List.of(member1, member2));
+
+    session = session.updateEstimation(member1.getMemberID(), "5");
+    assertEquals(VoteTally.of(session.getMembers()), session.getVoteTally());
+    session = session.addMember(member3).setLastModified(null).withVersion(1L);
+    assertEquals(VoteTally.of(session.getMembers()), session.getVoteTally());
+    session = session.updateEstimation(member1.getMemberID(), "8");
+    assertEquals(VoteTally.of(session.getMembers()), session.getVoteTally());
+    session = session.removeMember(member2.getMemberID());
+    assertEquals(VoteTally.of(session.getMembers()), session.getVoteTally());
+    assertTrue(session.getVoteTally().allVoted());
+
+    session = session.resetEstimations();
+
+    assertEquals(VoteTally.of(session.getMembers()), session.getVoteTally());
+    assertEquals(2, session.getVoteTally().getOutstanding());
+  }
+}
@@ -6,15 +6,21 @@
 package io.diveni.backend.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import io.diveni.backend.Utils;
 import io.diveni.backend.model.AvatarAnimal;
 import io.diveni.backend.model.Member;
 import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionConfig;
 import io.diveni.backend.model.SessionState;
+import io.diveni.backend.model.UserStory;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -50,9 +56,10 @@ public class SessionRepositoryTest {
             null,
             null,
             false,
+            null,
             null);
 
-    assertEquals(session, sessionRepo.save(session));
+    assertEquals(session.withVersion(0L), sessionRepo.save(session));
   }
 
   @Test
@@ -78,8 +85,69 @@ public class SessionRepositoryTest {
             null,
             null,
             false,
+            null,
             null);
 
-    assertEquals(session, sessionRepo.save(session));
+    assertEquals(session.withVersion(0L), sessionRepo.save(session));
+  }
+
+  @Test
+  public void findByMemberID_returnsSession() {
+    val member = new Member(Utils.generateRandomID(), "John", "0x0a0a0a", AvatarAnimal.CAMEL, null);
+    val session = sessionRepo.save(createSessionWithMember(member));
+
+    val result = sessionRepo.findByMemberID(member.getMemberID());
+
+    assertTrue(result.isPresent());
+    assertEquals(session.getSessionID(), result.get().getSessionID());
+    assertTrue(sessionRepo.existsByMemberID(member.getMemberID()));
+  }
+
+  @Test
+  public void findByMemberID_unknownMember_returnsEmpty() {
+    val member = new Member(Utils.generateRandomID(), "John", "0x0a0a0a", AvatarAnimal.CAMEL, null);
+    sessionRepo.save(createSessionWithMember(member));
+
+    val unknownID = Utils.generateRandomID();
+
+    assertFalse(sessionRepo.findByMemberID(unknownID).isPresent());
+    assertFalse(sessionRepo.existsByMemberID(unknownID));
+  }
+
+  @Test
+  public void findWithoutUserStoriesByMemberID_omitsUserStories() {
+    val member = new Member(Utils.generateRandomID(), "John", "0x0a0a0a", AvatarAnimal.CAMEL, null);
+    val session = sessionRepo.save(createSessionWithMember(member));
+
+    val result = sessionRepo.findWithoutUserStoriesByMemberID(member.getMemberID());
+
+    assertTrue(result.isPresent());
+    assertEquals(session.getSessionID(), result.get().getSessionID());
+    assertEquals(1, result.get().getMembers().size());
+    assertEquals(List.of("1", "2", "3"), result.get().getSessionConfig().getSet());
+    assertNull(result.get().getSessionConfig().getUserStories());
+  }
+
+  private Session createSessionWithMember(Member member) {
+    val members = new ArrayList<Member>();
+    members.add(member);
+    val userStories = List.of(new UserStory("1", "Story", "Description", "5", false));
+    return new Session(
+        new ObjectId(),
+        Utils.generateRandomID(),
+        Utils.generateRandomID(),
+        new SessionConfig(List.of("1", "2", "3"), userStories, null, "US_MANUALLY", null),
+        null,
+        members,
+        new HashMap<>(),
+        new ArrayList<>(),
+        SessionState.WAITING_FOR_MEMBERS,
+        null,
+        null,
+        null,
+        null,
+        false,
+        null,
+        null);
   }
 }
@@ -0,0 +1,170 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.diveni.backend.model.IssueImportState;
+import io.diveni.backend.model.IssueImportUpdate;
+import io.diveni.backend.model.UserStory;
+import io.diveni.backend.principals.AdminPrincipal;
+import io.diveni.backend.service.projectmanagementproviders.IssueImport;
+import io.diveni.backend.service.projectmanagementproviders.ProjectManagementProviders;
+import io.diveni.backend.service.projectmanagementproviders.jiracloud.JiraCloudService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.val;
+
+public class IssueImportServiceTest {
+
+  private static final AdminPrincipal ADMIN = new AdminPrincipal("sessionID", "adminID");
+
+  @Mock ProjectManagementProviders projectManagementProviders;
+
+  @Mock JiraCloudService jiraCloudService;
+
+  @Mock WebSocketService webSocketService;
+
+  @Mock Executor issueImportJobExecutor;
+
+  @InjectMocks private IssueImportService issueImportService;
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    when(projectManagementProviders.getProvider("token")).thenReturn(jiraCloudService);
+    when(jiraCloudService.serviceEnabled()).thenReturn(true);
+  }
+
+  private static UserStory story(String id) {
+    return new UserStory(id, "Story " + id, null, null, false);
+  }
+
+  private List<IssueImportUpdate> sentUpdates(int count) {
+    val updates = ArgumentCaptor.forClass(IssueImportUpdate.class);
+    verify(webSocketService, times(count)).sendIssueImportUpdate(eq(ADMIN), updates.capture());
+    return updates.getAllValues();
+  }
+
+  private void runJobsImmediately() {
+    doAnswer(
+            invocation -> {
+              invocation.getArgument(0, Runnable.class).run();
+              return null;
+            })
+        .when(issueImportJobExecutor)
+        .execute(any(Runnable.class));
+  }
+
+  @Test
+  public void import_sendsPagesAndFinishes() {
+    runJobsImmediately();
+    doAnswer(
+            invocation -> {
+              IssueImport.Listener listener = invocation.getArgument(2);
+              listener.onPage(List.of(story("1"), story("2")), 3);
+              listener.onPage(List.of(story("3")), 3);
+              return null;
+            })
+        .when(jiraCloudService)
+        .importIssues(eq("token"), eq("Diveni"), any(IssueImport.Listener.class));
+
+    issueImportService.startImport(ADMIN, "token", "Diveni");
+
+    val updates = sentUpdates(3);
+    assertEquals(IssueImportState.RUNNING, updates.get(0).getState());
+    assertEquals(List.of(story("1"), story("2")), updates.get(0).getUserStories());
+    assertEquals(2, updates.get(0).getImported());
+    assertEquals(3, updates.get(0).getTotal());
+    assertEquals(List.of(story("3")), updates.get(1).getUserStories());
+    assertEquals(3, updates.get(1).getImported());
+    assertEquals(IssueImportState.DONE, updates.get(2).getState());
+    assertTrue(updates.get(2).getUserStories().isEmpty());
+  }
+
+  @Test
+  public void failedImport_sendsFailed() {
+    runJobsImmediately();
+    doThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR))
+        .when(jiraCloudService)
+        .importIssues(anyString(), anyString(), any(IssueImport.Listener.class));
+
+    issueImportService.startImport(ADMIN, "token", "Diveni");
+
+    assertEquals(IssueImportState.FAILED, sentUpdates(1).get(0).getState());
+  }
+
+  @Test
+  public void unknownToken_sendsFailed() {
+    issueImportService.startImport(ADMIN, "unknown", "Diveni");
+
+    verify(issueImportJobExecutor, times(0)).execute(any(Runnable.class));
+    assertEquals(IssueImportState.FAILED, sentUpdates(1).get(0).getState());
+  }
+
+  @Test
+  public void cancelledImport_sendsNoFurtherPages() {
+    issueImportService.startImport(ADMIN, "token", "Diveni");
+    val job = ArgumentCaptor.forClass(Runnable.class);
+    verify(issueImportJobExecutor).execute(job.capture());
+    doAnswer(
+            invocation -> {
+              IssueImport.Listener listener = invocation.getArgument(2);
+              assertTrue(listener.isCancelled());
+              listener.onPage(List.of(story("1")), 1);
+              return null;
+            })
+        .when(jiraCloudService)
+        .importIssues(eq("token"), eq("Diveni"), any(IssueImport.Listener.class));
+
+    issueImportService.cancelImport(ADMIN.getSessionID());
+    job.getValue().run();
+
+    assertEquals(IssueImportState.CANCELLED, sentUpdates(1).get(0).getState());
+  }
+
+  @Test
+  public void newImport_replacesRunningOneSilently() {
+    issueImportService.startImport(ADMIN, "token", "Diveni");
+    issueImportService.startImport(ADMIN, "token", "Diveni-2");
+    val jobs = ArgumentCaptor.forClass(Runnable.class);
+    verify(issueImportJobExecutor, times(2)).execute(jobs.capture());
+    doAnswer(
+            invocation -> {
+              IssueImport.Listener listener = invocation.getArgument(2);
+              listener.onPage(List.of(story(invocation.getArgument(1))), 1);
+              return null;
+            })
+        .when(jiraCloudService)
+        .importIssues(eq("token"), anyString(), any(IssueImport.Listener.class));
+
+    jobs.getAllValues().forEach(Runnable::run);
+
+    val updates = sentUpdates(2);
+    assertEquals("Diveni-2", updates.get(0).getProjectName());
+    assertEquals(IssueImportState.RUNNING, updates.get(0).getState());
+    assertEquals(IssueImportState.DONE, updates.get(1).getState());
+  }
+}
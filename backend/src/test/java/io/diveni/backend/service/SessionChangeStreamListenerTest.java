@@ -0,0 +1,186 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionState;
+import io.diveni.backend.principals.SessionPrincipals;
+import io.diveni.backend.repository.SessionRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.val;
+
+public class SessionChangeStreamListenerTest {
+
+  @Mock MongoTemplate mongoTemplate;
+
+  @Mock SessionStore sessionStore;
+
+  @Mock WebSocketService webSocketService;
+
+  @Mock SessionMailboxExecutor sessionMailboxExecutor;
+
+  @InjectMocks private SessionChangeStreamListener listener;
+
+  private Session session;
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    session =
+        new Session(
+            new ObjectId(),
+            Utils.generateRandomID(),
+            Utils.generateRandomID(),
+            null,
+            null,
+            List.of(new Member(Utils.generateRandomID(), null, null, null, null)),
+            new HashMap<>(),
+            new ArrayList<>(),
+            SessionState.WAITING_FOR_MEMBERS,
+            null,
+            null,
+            null,
+            null,
+            false,
+            null,
+            1L);
+    when(webSocketService.hasSessionPrincipals(session.getSessionID())).thenReturn(true);
+    when(sessionStore.isOwnWrite(session.getSessionID(), 1L)).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              invocation.getArgument(1, Runnable.class).run();
+              return null;
+            })
+        .when(sessionMailboxExecutor)
+        .execute(anyString(), any(Runnable.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Message<ChangeStreamDocument<Document>, Session> changeOf(
+      OperationType type, Session stored) {
+    ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+    when(change.getOperationType()).thenReturn(type);
+    Message<ChangeStreamDocument<Document>, Session> message = mock(Message.class);
+    when(message.getRaw()).thenReturn(change);
+    when(message.getBody()).thenReturn(stored);
+    return message;
+  }
+
+  @Test
+  public void ownChange_isNotSent() {
+    listener.onChange(changeOf(OperationType.REPLACE, session));
+
+    verify(sessionMailboxExecutor, never()).execute(anyString(), any(Runnable.class));
+    verify(webSocketService, never()).sendMembersUpdate(any());
+  }
+
+  @Test
+  public void changeOfOtherNode_sendsChangedParts() {
+    listener.onChange(changeOf(OperationType.REPLACE, session));
+    val changed = session.updateSessionState(SessionState.START_VOTING).withVersion(2L);
+
+    listener.onChange(changeOf(OperationType.REPLACE, changed));
+
+    verify(sessionStore).refresh(changed);
+    verify(webSocketService).sendSessionStateToMembers(changed);
+    verify(webSocketService, never()).sendMembersUpdate(any());
+    verify(webSocketService, never()).sendMembersHostVoting(any());
+  }
+
+  @Test
+  public void changeOfSessionWithoutLocalUsers_isIgnored() {
+    val other = session.withVersion(2L);
+    when(webSocketService.hasSessionPrincipals(session.getSessionID())).thenReturn(false);
+
+    listener.onChange(changeOf(OperationType.UPDATE, other));
+
+    verify(sessionStore, never()).refresh(any());
+    verify(sessionMailboxExecutor, never()).execute(anyString(), any(Runnable.class));
+  }
+
+  @Test
+  public void deletedLiveSession_isClosed() {
+    when(webSocketService.getSessionPrincipalList())
+        .thenReturn(
+            List.of(
+                new SessionPrincipals(
+                    session.getSessionID(), null, ConcurrentHashMap.newKeySet())));
+    when(mongoTemplate.findDistinct(
+            any(Query.class), eq("sessionID"), eq(Session.class), eq(String.class)))
+        .thenReturn(List.of());
+
+    listener.onChange(changeOf(OperationType.DELETE, null));
+
+    verify(sessionStore).evictDeleted(session.getSessionID());
+    verify(webSocketService).sendSessionClosedToMembers(session.getSessionID());
+    verify(webSocketService).removeSession(session.getSessionID());
+  }
+
+  @Test
+  public void changeOfOtherNodeBetweenOwnWrites_isSent() {
+    val repository = mock(SessionRepository.class);
+    when(repository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              Session saved = invocation.getArgument(0);
+              return saved.withVersion(saved.getVersion() + 1);
+            });
+    val store = new SessionStore();
+    ReflectionTestUtils.setField(store, "sessionRepo", repository);
+    ReflectionTestUtils.setField(store, "WRITE_BEHIND", false);
+    ReflectionTestUtils.setField(listener, "sessionStore", store);
+    // this node writes v5 and v7, another node wrote v6 in between
+    val first = store.save(session.withVersion(4L));
+    val other = first.updateSessionState(SessionState.START_VOTING).withVersion(6L);
+    val second = store.save(other.updateSessionState(SessionState.VOTING_FINISHED));
+
+    listener.onChange(changeOf(OperationType.REPLACE, first));
+    listener.onChange(changeOf(OperationType.REPLACE, other));
+    listener.onChange(changeOf(OperationType.REPLACE, second));
+
+    verify(webSocketService).sendSessionStateToMembers(other);
+    verify(webSocketService, never()).sendSessionStateToMembers(second);
+  }
+
+  @Test
+  public void changeStreamWithWriteBehind_failsToStart() {
+    ReflectionTestUtils.setField(listener, "CHANGE_STREAM", true);
+    ReflectionTestUtils.setField(listener, "SESSIONS_WRITE_BEHIND", true);
+
+    assertThrows(IllegalStateException.class, listener::start);
+  }
+}
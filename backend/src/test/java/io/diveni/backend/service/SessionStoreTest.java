@@ -0,0 +1,359 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.model.AvatarAnimal;
+import io.diveni.backend.model.Member;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionState;
+import io.diveni.backend.repository.SessionRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.val;
+
+public class SessionStoreTest {
+
+  @Mock SessionRepository sessionRepo;
+
+  @Mock MongoTemplate mongoTemplate;
+
+  @Mock DiveniMetrics metrics;
+
+  @InjectMocks private SessionStore sessionStore;
+
+  private final Member defaultMember =
+      new Member(Utils.generateRandomID(), "John", "0x0a0a0a", AvatarAnimal.CAMEL, null);
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    when(sessionRepo.save(any()))
+        .thenAnswer(
+            invocation -> {
+              Session session = invocation.getArgument(0);
+              return session.withVersion(
+                  session.getVersion() == null ? 0L : session.getVersion() + 1);
+            });
+  }
+
+  private Session createSession(List<Member> members) {
+    return new Session(
+        new ObjectId(),
+        Utils.generateRandomID(),
+        Utils.generateRandomID(),
+        null,
+        null,
+        new ArrayList<>(members),
+        new HashMap<>(),
+        new ArrayList<>(),
+        SessionState.WAITING_FOR_MEMBERS,
+        null,
+        null,
+        null,
+        null,
+        false,
+        null,
+        0L);
+  }
+
+  @Test
+  public void save_isServedFromMemory() {
+    val session = createSession(List.of(defaultMember));
+
+    sessionStore.save(session);
+
+    assertSame(session, sessionStore.findBySessionID(session.getSessionID()).get());
+    assertSame(session, sessionStore.findByMemberID(defaultMember.getMemberID()).get());
+    verify(sessionRepo, never()).findBySessionID(any());
+    verify(sessionRepo, never()).findByMemberID(any());
+    verify(sessionRepo, never()).save(any());
+  }
+
+  @Test
+  public void replace_withCurrentSession_isStored() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    val updated = session.updateEstimation(defaultMember.getMemberID(), "5");
+
+    assertSame(updated, sessionStore.replace(session, updated));
+    assertSame(updated, sessionStore.findBySessionID(session.getSessionID()).get());
+  }
+
+  @Test
+  public void replace_withOutdatedSession_isRejected() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    val first = session.updateEstimation(defaultMember.getMemberID(), "5");
+    val second = session.updateEstimation(defaultMember.getMemberID(), "8");
+
+    sessionStore.replace(session, first);
+
+    assertNull(sessionStore.replace(session, second));
+    assertNull(sessionStore.update(session, second, new Query(), new Update()));
+    assertSame(first, sessionStore.findBySessionID(session.getSessionID()).get());
+  }
+
+  @Test
+  public void flush_updatesCachedVersion() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+
+    sessionStore.flush();
+
+    val cached = sessionStore.findBySessionID(session.getSessionID()).get();
+    assertEquals(1L, cached.getVersion());
+    assertNull(sessionStore.replace(session, session.resetEstimations()));
+  }
+
+  @Test
+  public void flush_conflictingVersion_dropsCachedSession() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    doThrow(new OptimisticLockingFailureException("changed")).when(sessionRepo).save(any());
+
+    sessionStore.flush();
+
+    assertEquals(0, sessionStore.getCachedSessionCount());
+    assertEquals(0, sessionStore.getDirtySessionCount());
+  }
+
+  @Test
+  public void flush_writesDirtySessionsOnce() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+
+    sessionStore.flush();
+    sessionStore.flush();
+
+    verify(sessionRepo, times(1)).save(session);
+    assertEquals(0, sessionStore.getDirtySessionCount());
+  }
+
+  @Test
+  public void flush_writesLatestVersion() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    val updated = session.updateEstimation(defaultMember.getMemberID(), "5");
+    sessionStore.save(updated);
+
+    sessionStore.flush();
+
+    verify(sessionRepo, times(1)).save(updated);
+  }
+
+  private BulkOperations mockBulkOperations(int... matchedCounts) {
+    val bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+    val results = new ArrayList<BulkWriteResult>();
+    for (int matchedCount : matchedCounts) {
+      val result = mock(BulkWriteResult.class);
+      when(result.getMatchedCount()).thenReturn(matchedCount);
+      results.add(result);
+    }
+    when(bulkOperations.execute())
+        .thenReturn(
+            results.get(0), results.subList(1, results.size()).toArray(BulkWriteResult[]::new));
+    when(mongoTemplate.bulkOps(BulkMode.ORDERED, Session.class)).thenReturn(bulkOperations);
+    return bulkOperations;
+  }
+
+  private static boolean isVersion(Query query, long version) {
+    return Long.valueOf(version).equals(query.getQueryObject().get("version"));
+  }
+
+  @Test
+  public void update_isFlushedAsBulkUpdate() {
+    val bulkOperations = mockBulkOperations(1);
+    val session = createSession(List.of(defaultMember));
+    val query = new Query();
+    val update = new Update().set("members.$.currentEstimation", "5");
+
+    sessionStore.save(session);
+    sessionStore.flush();
+    val current = sessionStore.findBySessionID(session.getSessionID()).get();
+
+    val updated = current.updateEstimation(defaultMember.getMemberID(), "5");
+    sessionStore.update(current, updated, query, update);
+    sessionStore.flush();
+
+    val cached = sessionStore.findBySessionID(session.getSessionID()).get();
+    assertEquals(updated.getMembers(), cached.getMembers());
+    assertEquals(2L, cached.getVersion());
+    verify(bulkOperations, times(1)).updateOne(argThat(q -> isVersion(q, 1L)), eq(update));
+    verify(bulkOperations, times(1)).execute();
+    verify(sessionRepo, times(1)).save(any());
+  }
+
+  @Test
+  public void unmatchedUpdate_isReappliedOnStoredVersion() {
+    val bulkOperations = mockBulkOperations(1, 1);
+    val session = createSession(List.of(defaultMember));
+    val first = new Update().set("members.$.currentEstimation", "5");
+    val second = new Update().set("hostEstimation", "8");
+    sessionStore.save(session);
+    sessionStore.flush();
+    val current = sessionStore.findBySessionID(session.getSessionID()).get();
+    val voted = current.updateEstimation(defaultMember.getMemberID(), "5");
+    sessionStore.update(current, voted, new Query(), first);
+    sessionStore.update(voted, voted.setHostEstimation("8"), new Query(), second);
+    val stored = new Document("sessionID", session.getSessionID()).append("version", 2L);
+    when(mongoTemplate.find(any(Query.class), eq(Document.class), any()))
+        .thenReturn(List.of(stored));
+
+    sessionStore.flush();
+
+    assertEquals(1, sessionStore.getDirtySessionCount());
+    assertEquals(2L, sessionStore.findBySessionID(session.getSessionID()).get().getVersion());
+    assertTrue(sessionStore.isOwnWrite(session.getSessionID(), 2L));
+    sessionStore.flush();
+
+    assertEquals(0, sessionStore.getDirtySessionCount());
+    assertEquals(3L, sessionStore.findBySessionID(session.getSessionID()).get().getVersion());
+    verify(bulkOperations, times(1)).updateOne(argThat(q -> isVersion(q, 1L)), eq(first));
+    verify(bulkOperations, times(2)).updateOne(argThat(q -> isVersion(q, 2L)), eq(second));
+  }
+
+  @Test
+  public void save_supersedesQueuedUpdates() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    sessionStore.flush();
+    val current = sessionStore.findBySessionID(session.getSessionID()).get();
+    val voted = current.setHostEstimation("5");
+    sessionStore.update(current, voted, new Query(), new Update().set("hostEstimation", null));
+    val updated = voted.updateEstimation(defaultMember.getMemberID(), "5");
+    sessionStore.replace(voted, updated);
+
+    sessionStore.flush();
+
+    verify(sessionRepo, times(1)).save(updated);
+    verify(mongoTemplate, never()).bulkOps(any(BulkMode.class), eq(Session.class));
+  }
+
+  @Test
+  public void failedFlush_isRetried() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    doThrow(new RuntimeException("down"))
+        .doReturn(session.withVersion(1L))
+        .when(sessionRepo)
+        .save(any());
+
+    sessionStore.flush();
+    assertEquals(1, sessionStore.getDirtySessionCount());
+    sessionStore.flush();
+
+    verify(sessionRepo, times(2)).save(session);
+    assertEquals(0, sessionStore.getDirtySessionCount());
+  }
+
+  @Test
+  public void removedMember_isNotFoundEvenIfStoredDocumentIsStale() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+    sessionStore.save(session.removeMember(defaultMember.getMemberID()));
+    when(sessionRepo.findByMemberID(defaultMember.getMemberID())).thenReturn(Optional.of(session));
+
+    assertFalse(sessionStore.findByMemberID(defaultMember.getMemberID()).isPresent());
+  }
+
+  @Test
+  public void cacheMiss_isLoadedOnce() {
+    val session = createSession(List.of(defaultMember));
+    when(sessionRepo.findBySessionID(session.getSessionID())).thenReturn(session);
+
+    sessionStore.findBySessionID(session.getSessionID());
+    sessionStore.findBySessionID(session.getSessionID());
+
+    verify(sessionRepo, times(1)).findBySessionID(session.getSessionID());
+    assertEquals(1, sessionStore.getCachedSessionCount());
+  }
+
+  @Test
+  public void delete_isRemovedAndNotFlushed() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+
+    sessionStore.delete(session);
+    sessionStore.flush();
+
+    verify(sessionRepo, times(1)).delete(session);
+    verify(sessionRepo, never()).save(any());
+    assertEquals(0, sessionStore.getCachedSessionCount());
+  }
+
+  @Test
+  public void idleSession_isEvictedAfterFlush() {
+    ReflectionTestUtils.setField(sessionStore, "IDLE_EVICTION_MS", -1L);
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+
+    sessionStore.evictIdleSessions();
+    assertEquals(1, sessionStore.getCachedSessionCount());
+    sessionStore.flush();
+    sessionStore.evictIdleSessions();
+
+    assertEquals(0, sessionStore.getCachedSessionCount());
+  }
+
+  @Test
+  public void disabledWriteBehind_writesThrough() {
+    ReflectionTestUtils.setField(sessionStore, "WRITE_BEHIND", false);
+    val session = createSession(List.of(defaultMember));
+
+    sessionStore.save(session);
+
+    verify(sessionRepo, times(1)).save(session);
+    assertEquals(0, sessionStore.getCachedSessionCount());
+  }
+
+  @Test
+  public void flushedVersion_isOwnWrite() {
+    val session = createSession(List.of(defaultMember));
+    sessionStore.save(session);
+
+    assertFalse(sessionStore.isOwnWrite(session.getSessionID(), 1L));
+    sessionStore.flush();
+
+    assertTrue(sessionStore.isOwnWrite(session.getSessionID(), 1L));
+    assertFalse(sessionStore.isOwnWrite(session.getSessionID(), 2L));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.handler.SessionMailboxExecutor;
+import io.diveni.backend.model.Session;
+import io.diveni.backend.model.SessionConfig;
+import io.diveni.backend.model.SessionState;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+
+import lombok.val;
+
+public class TimerServiceTest {
+
+  @Mock TaskScheduler messageBrokerTaskScheduler;
+
+  @Mock SessionMailboxExecutor sessionMailboxExecutor;
+
+  @InjectMocks private TimerService timerService;
+
+  private final AtomicInteger expired = new AtomicInteger();
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    doAnswer(
+            invocation -> {
+              invocation.getArgument(1, Runnable.class).run();
+              return null;
+            })
+        .when(sessionMailboxExecutor)
+        .execute(anyString(), any(Runnable.class));
+    when(messageBrokerTaskScheduler.schedule(any(Runnable.class), any(Instant.class)))
+        .thenAnswer(invocation -> mock(ScheduledFuture.class));
+  }
+
+  private Session createSession(Integer timerSeconds, Date start) {
+    return new Session(
+        new ObjectId(),
+        Utils.generateRandomID(),
+        Utils.generateRandomID(),
+        new SessionConfig(new ArrayList<>(), List.of(), timerSeconds, "US_MANUALLY", null),
+        null,
+        new ArrayList<>(),
+        new HashMap<>(),
+        new ArrayList<>(),
+        SessionState.START_VOTING,
+        null,
+        null,
+        Utils.getTimestampISO8601(start),
+        null,
+        false,
+        null,
+        null);
+  }
+
+  @Test
+  public void timer_expiresAfterTimerSeconds() {
+    val start = new Date();
+    val session = createSession(30, start);
+    val expiry = ArgumentCaptor.forClass(Runnable.class);
+    val deadline = ArgumentCaptor.forClass(Instant.class);
+
+    timerService.start(session, expired::incrementAndGet);
+    verify(messageBrokerTaskScheduler).schedule(expiry.capture(), deadline.capture());
+    expiry.getValue().run();
+
+    assertEquals(start.toInstant().plusSeconds(30), deadline.getValue());
+
+    assertEquals(1, expired.get());
+    assertFalse(timerService.isRunning(session.getSessionID()));
+  }
+
+  @Test
+  public void cancelledTimer_doesNotExpire() {
+    val session = createSession(30, new Date());
+
+    timerService.start(session, expired::incrementAndGet);
+    val expiry = ArgumentCaptor.forClass(Runnable.class);
+    verify(messageBrokerTaskScheduler).schedule(expiry.capture(), any(Instant.class));
+    timerService.cancel(session.getSessionID());
+    expiry.getValue().run();
+
+    assertEquals(0, expired.get());
+  }
+
+  @Test
+  public void restartedTimer_replacesRunningOne() {
+    val session = createSession(30, new Date());
+
+    timerService.start(session, expired::incrementAndGet);
+    val first = ArgumentCaptor.forClass(Runnable.class);
+    verify(messageBrokerTaskScheduler).schedule(first.capture(), any(Instant.class));
+    timerService.start(session, expired::incrementAndGet);
+    first.getValue().run();
+
+    assertEquals(0, expired.get());
+    assertTrue(timerService.isRunning(session.getSessionID()));
+  }
+
+  @Test
+  public void sessionWithoutTimerSeconds_isNotScheduled() {
+    val session = createSession(null, new Date());
+
+    timerService.start(session, expired::incrementAndGet);
+
+    verify(messageBrokerTaskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    assertFalse(timerService.isRunning(session.getSessionID()));
+  }
+}
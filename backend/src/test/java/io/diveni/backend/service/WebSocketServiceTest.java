@@ -5,15 +5,24 @@
 */
 package io.diveni.backend.service;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import io.diveni.backend.Utils;
@@ -32,10 +41,15 @@ import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import lombok.val;
@@ -44,6 +58,10 @@ public class WebSocketServiceTest {
 
   @Mock SimpMessagingTemplate simpMessagingTemplateMock;
 
+  @Mock TaskScheduler messageBrokerTaskScheduler;
+
+  @Mock DiveniMetrics metrics;
+
   @InjectMocks private WebSocketService webSocketService;
 
   @Mock private DatabaseService databaseService;
@@ -60,13 +78,28 @@ public class WebSocketServiceTest {
   }
 
   void setDefaultAdminPrincipal(Set<MemberPrincipal> members) throws Exception {
-    val sessionPrincipalsField = WebSocketService.class.getDeclaredField("sessionPrincipalList");
-    sessionPrincipalsField.setAccessible(true);
-    val sessionPrincipals =
-        List.of(
-            new SessionPrincipals(
-                defaultAdminPrincipal.getSessionID(), defaultAdminPrincipal, members));
-    sessionPrincipalsField.set(webSocketService, sessionPrincipals);
+    webSocketService.setAdminUser(defaultAdminPrincipal);
+    members.forEach(webSocketService::addMemberIfNew);
+  }
+
+  private Session createSession(List<Member> members) {
+    return new Session(
+        new ObjectId(),
+        defaultAdminPrincipal.getSessionID(),
+        defaultAdminPrincipal.getAdminID(),
+        null,
+        null,
+        members,
+        new HashMap<>(),
+        new ArrayList<>(),
+        SessionState.WAITING_FOR_MEMBERS,
+        null,
+        null,
+        null,
+        null,
+        false,
+        null,
+        null);
   }
 
   @Test
@@ -143,6 +176,15 @@ public class WebSocketServiceTest {
             .size());
   }
 
+  @Test
+  public void addMember_isIndexedByMemberID() throws Exception {
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+
+    Assertions.assertEquals(
+        Optional.of(defaultAdminPrincipal.getSessionID()),
+        webSocketService.getSessionIDByMemberID(defaultMemberPrincipal.getMemberID()));
+  }
+
   @Test
   public void removeMember_isRemoved() throws Exception {
     setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
@@ -175,15 +217,181 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendMembersUpdate(session);
 
+    verify(simpMessagingTemplateMock, times(1))
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.snapshot(1, session.getMembers(), session.getCurrentHighlights()));
+    verify(simpMessagingTemplateMock, never())
+        .convertAndSendToUser(anyString(), anyString(), any(Object.class));
+  }
+
+  @Test
+  public void sendMemberEstimationUpdate_sendsOnlyChangedMember() throws Exception {
+    ReflectionTestUtils.setField(webSocketService, "MEMBER_UPDATE_WINDOW_MS", 0L);
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val member = new Member(defaultMemberPrincipal.getMemberID(), null, null, null, "5");
+    val session =
+        createSession(
+            List.of(member, new Member(Utils.generateRandomID(), null, null, null, null)));
+
+    webSocketService.sendMembersUpdate(session);
+    webSocketService.sendMemberEstimationUpdate(session, member.getMemberID());
+
+    verify(simpMessagingTemplateMock, times(1))
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.estimationChanged(2, member));
+  }
+
+  @Test
+  public void sendMemberEstimationUpdates_withinWindow_areSentTogether() throws Exception {
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val first = new Member(defaultMemberPrincipal.getMemberID(), null, null, null, "5");
+    val second = new Member(Utils.generateRandomID(), null, null, null, "8");
+    val session = createSession(List.of(first, second));
+
+    webSocketService.sendMemberEstimationUpdate(session, first.getMemberID());
+    webSocketService.sendMemberEstimationUpdate(session, second.getMemberID());
+
+    verify(messageBrokerTaskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    verify(simpMessagingTemplateMock, never()).convertAndSend(anyString(), any(Object.class));
+
+    webSocketService.flushMemberUpdates(session.getSessionID());
+
+    verify(simpMessagingTemplateMock, times(1))
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.estimationsChanged(1, List.of(first, second)));
+  }
+
+  @Test
+  public void sendSessionState_sendsPendingEstimationsFirst() throws Exception {
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val member = new Member(defaultMemberPrincipal.getMemberID(), null, null, null, "5");
+    val session = createSession(List.of(member));
+
+    webSocketService.sendMemberEstimationUpdate(session, member.getMemberID());
+    webSocketService.sendSessionStateToMembers(session);
+
+    val inOrder = inOrder(simpMessagingTemplateMock);
+    inOrder
+        .verify(simpMessagingTemplateMock)
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.estimationChanged(1, member));
+    inOrder
+        .verify(simpMessagingTemplateMock)
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBER_UPDATES_DESTINATION),
+            session.getSessionState().toString());
+  }
+
+  @Test
+  public void sendMemberEstimationUpdate_withBrokerRelay_sendsSnapshotWithStoredVersion()
+      throws Exception {
+    ReflectionTestUtils.setField(webSocketService, "BROKER_RELAY", true);
+    val member = new Member(defaultMemberPrincipal.getMemberID(), null, null, null, "5");
+    val session = createSession(List.of(member)).withVersion(7L);
+    // the admin is connected to another node
+    webSocketService.addMemberIfNew(defaultMemberPrincipal);
+
+    webSocketService.sendMemberEstimationUpdate(session, member.getMemberID());
+
+    verify(simpMessagingTemplateMock, times(1))
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.snapshot(7, session.getMembers(), session.getCurrentHighlights()));
+  }
+
+  @Test
+  public void sendMemberLeftUpdate_sendsMemberID() throws Exception {
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val session = createSession(List.of());
+
+    webSocketService.sendMemberLeftUpdate(session, defaultMemberPrincipal.getMemberID());
+
+    verify(simpMessagingTemplateMock, times(1))
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            MemberUpdate.memberLeft(1, defaultMemberPrincipal.getMemberID()));
+  }
+
+  @Test
+  public void sendMembersSnapshotToUser_sendsCurrentVersion() throws Exception {
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val session =
+        createSession(
+            List.of(new Member(defaultMemberPrincipal.getMemberID(), null, null, null, null)));
+
+    webSocketService.sendMembersUpdate(session);
+    webSocketService.sendMemberLeftUpdate(session, Utils.generateRandomID());
+    webSocketService.sendMembersSnapshotToUser(session, defaultMemberPrincipal.getMemberID());
+
     verify(simpMessagingTemplateMock, times(1))
         .convertAndSendToUser(
-            defaultAdminPrincipal.getName(),
+            defaultMemberPrincipal.getMemberID(),
             WebSocketService.MEMBERS_UPDATED_DESTINATION,
-            new MemberUpdate(session.getMembers(), session.getCurrentHighlights()));
+            MemberUpdate.snapshot(2, session.getMembers(), session.getCurrentHighlights()));
+  }
+
+  @Test
+  public void sendMembersUpdateWithoutSessionTopics_sendsSameMessageToEveryUser()
+      throws Exception {
+    ReflectionTestUtils.setField(webSocketService, "SESSION_TOPICS", false);
+    when(simpMessagingTemplateMock.getMessageConverter())
+        .thenReturn(new MappingJackson2MessageConverter());
+    when(simpMessagingTemplateMock.getUserDestinationPrefix()).thenReturn("/users/");
+    setDefaultAdminPrincipal(Set.of(defaultMemberPrincipal));
+    val session =
+        new Session(
+            new ObjectId(),
+            defaultAdminPrincipal.getSessionID(),
+            defaultAdminPrincipal.getAdminID(),
+            null,
+            null,
+            List.of(new Member(defaultMemberPrincipal.getMemberID(), null, null, null, null)),
+            new HashMap<>(),
+            new ArrayList<>(),
+            null,
+            null,
+            null,
+            null,
+            null,
+            false,
+            null,
+            null);
+
+    webSocketService.sendMembersUpdate(session);
+
+    val adminMessage = ArgumentCaptor.forClass(Message.class);
+    val memberMessage = ArgumentCaptor.forClass(Message.class);
+    verify(simpMessagingTemplateMock, times(1))
+        .send(
+            eq(
+                "/users/"
+                    + defaultAdminPrincipal.getName()
+                    + WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            adminMessage.capture());
+    verify(simpMessagingTemplateMock, times(1))
+        .send(
+            eq(
+                "/users/"
+                    + defaultMemberPrincipal.getMemberID()
+                    + WebSocketService.MEMBERS_UPDATED_DESTINATION),
+            memberMessage.capture());
+    assertSame(adminMessage.getValue().getPayload(), memberMessage.getValue().getPayload());
   }
 
   @Test
@@ -205,6 +413,7 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMember(session, defaultMemberPrincipal.getMemberID());
@@ -235,6 +444,7 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMemberWithAutoReveal(
@@ -266,6 +476,7 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMemberWithAutoReveal(
@@ -301,19 +512,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMembers(session);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION,
-            session.getSessionState().toString());
-    verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            memberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBER_UPDATES_DESTINATION),
             session.getSessionState().toString());
   }
 
@@ -340,19 +547,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMembersWithAutoReveal(session, true);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL,
-            session.getSessionState().toString() + " true");
-    verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            memberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL),
             session.getSessionState().toString() + " true");
   }
 
@@ -379,19 +582,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSessionStateToMembersWithAutoReveal(session, false);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL,
-            session.getSessionState().toString() + " false");
-    verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            memberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBER_UPDATES_DESTINATION_AUTOREVEAL),
             session.getSessionState().toString() + " false");
   }
 
@@ -418,19 +617,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendUpdatedUserStoriesToMembers(session);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.US_UPDATES_DESTINATION,
-            session.getSessionConfig().getUserStories());
-    verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.US_UPDATES_DESTINATION,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.US_UPDATES_DESTINATION),
             session.getSessionConfig().getUserStories());
   }
 
@@ -459,14 +654,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendSelectedUserStoryToMembers(session, selectedUserStoryIndex);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.USER_STORY_SELECTED_DESTINATION,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.USER_STORY_SELECTED_DESTINATION),
             selectedUserStoryIndex);
   }
 
@@ -493,15 +689,16 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
     val notification = new Notification(NotificationType.ADMIN_LEFT, null);
 
     webSocketService.sendNotification(session, notification);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.NOTIFICATIONS_DESTINATION,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.NOTIFICATIONS_DESTINATION),
             notification);
   }
 
@@ -524,11 +721,14 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.removeSession(session);
 
     assertTrue(webSocketService.getSessionPrincipalList().isEmpty());
+    assertTrue(
+        webSocketService.getSessionIDByMemberID(defaultMemberPrincipal.getMemberID()).isEmpty());
   }
 
   @Test
@@ -550,14 +750,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
+            null,
             null);
 
     webSocketService.sendMembersHostVoting(session);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.MEMBER_UPDATES_HOSTVOTING,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.MEMBER_UPDATES_HOSTVOTING),
             session.getHostVoting());
   }
 
@@ -580,14 +781,15 @@ public class WebSocketServiceTest {
             null,
             null,
             false,
-            new AdminVote("XL"));
+            new AdminVote("XL"),
+            null);
 
     webSocketService.sendMembersAdminVote(session);
 
     verify(simpMessagingTemplateMock, times(1))
-        .convertAndSendToUser(
-            defaultMemberPrincipal.getMemberID(),
-            WebSocketService.ADMIN_UPDATED_ESTIMATION,
+        .convertAndSend(
+            WebSocketService.getSessionTopic(
+                session.getSessionID(), WebSocketService.ADMIN_UPDATED_ESTIMATION),
             session.getHostEstimation());
   }
 }
@@ -0,0 +1,89 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import io.diveni.backend.Utils;
+import io.diveni.backend.model.NodeLease;
+import io.diveni.backend.repository.NodeLeaseRepository;
+import io.diveni.backend.service.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.val;
+
+public class ClusterServiceTest {
+
+  @Mock NodeLeaseRepository nodeLeaseRepo;
+
+  @Mock SessionStore sessionStore;
+
+  @InjectMocks private ClusterService clusterService;
+
+  private final NodeLease otherNode = new NodeLease("other", "http://other:9090", new Date());
+
+  @BeforeEach
+  public void initEach() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(clusterService, "AFFINITY", true);
+    ReflectionTestUtils.setField(clusterService, "NODE_ID", "self");
+    ReflectionTestUtils.setField(clusterService, "NODE_URL", "http://self:9090");
+  }
+
+  private String sessionOwnedBy(String nodeID) {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("self", "other"));
+    String sessionID;
+    do {
+      sessionID = Utils.generateRandomID();
+    } while (!nodeID.equals(ring.getNode(sessionID)));
+    return sessionID;
+  }
+
+  @Test
+  public void withoutAffinity_everySessionIsOwned() {
+    ReflectionTestUtils.setField(clusterService, "AFFINITY", false);
+
+    assertTrue(clusterService.isOwner(Utils.generateRandomID()));
+    assertEquals(Optional.empty(), clusterService.getOwnerURL(Utils.generateRandomID()));
+  }
+
+  @Test
+  public void sessionOfOtherNode_isRedirected() {
+    when(nodeLeaseRepo.findByExpiresAtAfter(any())).thenReturn(List.of(otherNode));
+    clusterService.join();
+    val sessionID = sessionOwnedBy("other");
+
+    assertFalse(clusterService.isOwner(sessionID));
+    assertEquals(Optional.of("http://other:9090"), clusterService.getOwnerURL(sessionID));
+    assertTrue(clusterService.isOwner(sessionOwnedBy("self")));
+  }
+
+  @Test
+  public void expiredNode_losesItsSessions() {
+    when(nodeLeaseRepo.findByExpiresAtAfter(any()))
+        .thenReturn(List.of(otherNode))
+        .thenReturn(List.of());
+    clusterService.join();
+    val sessionID = sessionOwnedBy("other");
+
+    clusterService.renewLease();
+
+    assertTrue(clusterService.isOwner(sessionID));
+  }
+}
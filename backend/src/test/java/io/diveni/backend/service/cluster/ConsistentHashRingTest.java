@@ -0,0 +1,63 @@
+/*
+  SPDX-License-Identifier: AGPL-3.0-or-later
+  Diveni - The Planing-Poker App
+  Copyright (C) 2022 Diveni Team, AUME-Team 21/22, HTWG Konstanz
+*/
+package io.diveni.backend.service.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.diveni.backend.Utils;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class ConsistentHashRingTest {
+
+  private final List<String> sessionIDs =
+      IntStream.range(0, 3000).mapToObj(i -> Utils.generateRandomID()).collect(Collectors.toList());
+
+  @Test
+  public void emptyRing_hasNoOwner() {
+    assertNull(new ConsistentHashRing(List.of()).getNode(Utils.generateRandomID()));
+  }
+
+  @Test
+  public void sameNodes_giveSameOwners() {
+    val ring = new ConsistentHashRing(List.of("a", "b", "c"));
+    val other = new ConsistentHashRing(List.of("c", "a", "b"));
+
+    sessionIDs.forEach(id -> assertEquals(ring.getNode(id), other.getNode(id)));
+  }
+
+  @Test
+  public void sessions_areSpreadOverAllNodes() {
+    val ring = new ConsistentHashRing(List.of("a", "b", "c"));
+    val counts = new HashMap<String, Integer>();
+
+    sessionIDs.forEach(id -> counts.merge(ring.getNode(id), 1, Integer::sum));
+
+    assertEquals(3, counts.size());
+    // every node gets roughly a third
+    counts.values().forEach(count -> assertTrue(count > 600, "count " + count));
+  }
+
+  @Test
+  public void removedNode_onlyMovesItsOwnSessions() {
+    val ring = new ConsistentHashRing(List.of("a", "b", "c"));
+    val withoutC = new ConsistentHashRing(List.of("a", "b"));
+
+    for (String id : sessionIDs) {
+      if (!ring.getNode(id).equals("c")) {
+        assertEquals(ring.getNode(id), withoutC.getNode(id));
+      }
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package io.diveni.backend.service.projectmanagementproviders;
+
+import io.diveni.backend.model.UserStory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class JiraSearchPageTest {
+
+  private static final String ESTIMATION_FIELD = "customfield_10111";
+
+  @Test
+  void read_parsesIssues() throws IOException {
+    String json =
+        "{\"expand\":\"schema,names\",\"startAt\":0,\"maxResults\":50,\"total\":3,\"issues\":["
+            + "{\"expand\":\"\",\"id\":\"1\",\"self\":\"x\",\"key\":\"DIV-1\",\"fields\":"
+            + "{\"summary\":\"First\",\"description\":\"Description\",\""
+            + ESTIMATION_FIELD
+            + "\":3.0}},"
+            + "{\"id\":\"2\",\"fields\":{\"summary\":\"Second\",\"description\":null,\""
+            + ESTIMATION_FIELD
+            + "\":null,\"labels\":[\"a\",{\"b\":1}]}},"
+            + "{\"id\":\"3\",\"fields\":{\"summary\":\"Third\",\""
+            + ESTIMATION_FIELD
+            + "\":0.5}}]}";
+
+    JiraSearchPage page =
+        JiraSearchPage.read(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), ESTIMATION_FIELD);
+
+    Assertions.assertEquals(0, page.getStartAt());
+    Assertions.assertEquals(50, page.getMaxResults());
+    Assertions.assertEquals(3, page.getTotal());
+    Assertions.assertEquals(
+        List.of(
+            new UserStory("1", "First", "Description", "3", false),
+            new UserStory("2", "Second", null, null, false),
+            new UserStory("3", "Third", null, "0.5", false)),
+        page.getIssues());
+  }
+
+  @Test
+  void fetchAll_requestsRemainingPages() throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Integer> requested = new ArrayList<>();
+    List<UserStory> userStories = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    try {
+      // the server limits the page to 40 issues although more were asked for
+      JiraSearchPage.fetchAll(
+          startAt -> {
+            synchronized (requested) {
+              requested.add(startAt);
+            }
+            return page(startAt, 40, 130);
+          },
+          (issues, total) -> {
+            Assertions.assertEquals(130, total);
+            pageSizes.add(issues.size());
+            userStories.addAll(issues);
+          },
+          executor,
+          2);
+    } finally {
+      executor.shutdown();
+    }
+
+    Assertions.assertEquals(List.of(40, 40, 40, 10), pageSizes);
+    for (int i = 0; i < userStories.size(); i++) {
+      Assertions.assertEquals(String.valueOf(i), userStories.get(i).getId());
+    }
+    Assertions.assertEquals(4, requested.size());
+    Assertions.assertTrue(requested.containsAll(List.of(0, 40, 80, 120)));
+  }
+
+  @Test
+  void fetchAll_keepsAtMostConcurrencyPagesInFlight() throws IOException {
+    AtomicInteger requested = new AtomicInteger();
+    AtomicInteger handedOver = new AtomicInteger();
+
+    JiraSearchPage.fetchAll(
+        startAt -> {
+          Assertions.assertTrue(requested.incrementAndGet() - handedOver.get() <= 2);
+          return page(startAt, 10, 100);
+        },
+        (issues, total) -> handedOver.incrementAndGet(),
+        Runnable::run,
+        2);
+
+    Assertions.assertEquals(10, requested.get());
+    Assertions.assertEquals(10, handedOver.get());
+  }
+
+  @Test
+  void fetchAll_cancelledImportStops() throws IOException {
+    List<Integer> requested = new ArrayList<>();
+    List<UserStory> userStories = new ArrayList<>();
+
+    JiraSearchPage.fetchAll(
+        startAt -> {
+          requested.add(startAt);
+          return page(startAt, 40, 130);
+        },
+        new IssueImport.Listener() {
+          @Override
+          public void onPage(List<UserStory> issues, int total) {
+            userStories.addAll(issues);
+          }
+
+          @Override
+          public boolean isCancelled() {
+            return !userStories.isEmpty();
+          }
+        },
+        Runnable::run,
+        4);
+
+    Assertions.assertEquals(List.of(0), requested);
+    Assertions.assertEquals(40, userStories.size());
+  }
+
+  @Test
+  void fetchAll_failedPageFailsImport() {
+    Assertions.assertThrows(
+        IOException.class,
+        () ->
+            JiraSearchPage.fetchAll(
+                startAt -> {
+                  if (startAt > 0) {
+                    throw new IOException("Read timed out");
+                  }
+                  return page(startAt, 40, 130);
+                },
+                (issues, total) -> {},
+                Runnable::run,
+                4));
+  }
+
+  private static JiraSearchPage page(int startAt, int maxResults, int total) {
+    List<UserStory> issues = new ArrayList<>();
+    for (int i = startAt; i < Math.min(startAt + maxResults, total); i++) {
+      issues.add(new UserStory(String.valueOf(i), "Story " + i, null, null, false));
+    }
+    return new JiraSearchPage(startAt, maxResults, total, issues);
+  }
+}
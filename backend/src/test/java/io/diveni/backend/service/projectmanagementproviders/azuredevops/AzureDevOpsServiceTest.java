@@ -3,6 +3,7 @@ package io.diveni.backend.service.projectmanagementproviders.azuredevops;
 import io.diveni.backend.model.Project;
 import io.diveni.backend.model.UserStory;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
@@ -12,8 +13,10 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.mockito.ArgumentMatchers.any;
 
@@ -22,6 +25,12 @@ class AzureDevOpsServiceTest {
 
   @InjectMocks @Spy private AzureDevOpsService azureDevOpsService;
 
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+        azureDevOpsService, "issueImportExecutor", (Executor) Runnable::run);
+  }
+
   @Test
   void getProjects() {
     HttpHeaders mockedHeaders = new HttpHeaders();
@@ -0,0 +1,87 @@
+package io.diveni.backend.service.projectmanagementproviders.jiracloud;
+
+import io.diveni.backend.model.Project;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+@SpringBootTest
+class JiraCloudServiceTest {
+
+  private static final String ACCESSIBLE_RESOURCES =
+      "https://api.atlassian.com/oauth/token/accessible-resources";
+
+  @InjectMocks @Spy private JiraCloudService jiraCloudService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+        jiraCloudService, "issueImportExecutor", (Executor) Runnable::run);
+    HttpHeaders mockedHeaders = new HttpHeaders();
+    mockedHeaders.setContentType(MediaType.APPLICATION_JSON);
+    Mockito.doReturn(
+            new ResponseEntity<>(
+                "[{\"id\":\"cloudID\",\"name\":\"diveni\"}]",
+                mockedHeaders,
+                HttpStatus.valueOf(200)))
+        .when(jiraCloudService)
+        .executeRequest(eq(ACCESSIBLE_RESOURCES), any(), any(), any());
+    Mockito.doReturn(
+            new ResponseEntity<>(
+                "{\"values\":[{\"id\":\"1\",\"name\":\"Diveni-Issue-Tracker\"}]}",
+                mockedHeaders,
+                HttpStatus.valueOf(200)))
+        .when(jiraCloudService)
+        .executeRequest(startsWith("https://api.atlassian.com/ex/jira/"), any(), any(), any());
+  }
+
+  @Test
+  void getProjects_resolvesCloudIDOnce() {
+    jiraCloudService.getAccessTokens().put("tokenIdentifier", new JiraCloudToken("accessToken"));
+
+    List<Project> projects = jiraCloudService.getProjects("tokenIdentifier");
+    jiraCloudService.getProjects("tokenIdentifier");
+
+    Assertions.assertEquals(1, projects.size());
+    Assertions.assertEquals("Diveni-Issue-Tracker", projects.get(0).getName());
+    Assertions.assertEquals(
+        "cloudID", jiraCloudService.getAccessTokens().get("tokenIdentifier").getCloudID());
+    Mockito.verify(jiraCloudService, Mockito.times(1))
+        .executeRequest(eq(ACCESSIBLE_RESOURCES), any(), eq("accessToken"), any());
+    Mockito.verify(jiraCloudService, Mockito.times(2))
+        .executeRequest(
+            eq("https://api.atlassian.com/ex/jira/cloudID/rest/api/2/project/search"),
+            any(),
+            eq("accessToken"),
+            any());
+  }
+
+  @Test
+  void getCloudID_removedTokenIsResolvedAgain() {
+    jiraCloudService.getAccessTokens().put("tokenIdentifier", new JiraCloudToken("accessToken"));
+    Assertions.assertEquals("cloudID", jiraCloudService.getCloudID("tokenIdentifier"));
+
+    jiraCloudService.getAccessTokens().remove("tokenIdentifier");
+    jiraCloudService.getAccessTokens().put("tokenIdentifier", new JiraCloudToken("accessToken"));
+    Assertions.assertEquals("cloudID", jiraCloudService.getCloudID("tokenIdentifier"));
+
+    Mockito.verify(jiraCloudService, Mockito.times(2))
+        .executeRequest(eq(ACCESSIBLE_RESOURCES), any(), any(), any());
+  }
+}
@@ -24,6 +24,8 @@ class Constants {
 
   webSocketMembersUpdatedRoute = "/users/updates/membersUpdated";
 
+  webSocketMembersSnapshotRoute = "/ws/membersSnapshot";
+
   webSocketStartPlanningRoute = "/ws/startVoting";
 
   webSocketVotingFinishedRoute = "/ws/votingFinished";
@@ -40,6 +42,12 @@ class Constants {
 
   webSocketAdminSelectedUserStoryRoute = "/ws/adminSelectedUserStory";
 
+  webSocketImportIssuesRoute = "/ws/importIssues";
+
+  webSocketCancelImportRoute = "/ws/cancelImport";
+
+  webSocketIssueImportRoute = "/users/updates/importedIssues";
+
   webSocketSelectedUserStoryRoute = "/users/updates/userStorySelected";
 
   webSocketMemberListenUserStoriesRoute = "/users/updates/userStories";
@@ -58,11 +66,21 @@ class Constants {
 
   memberUpdateCloseSession = "SESSION_CLOSED";
 
+  // eslint-disable-next-line class-methods-use-this
+  public webSocketSessionTopicRoute(sessionID: string, userRoute: string) {
+    return userRoute.replace("/users/updates/", `/updates/sessions/${sessionID}/`);
+  }
+
   // eslint-disable-next-line class-methods-use-this
   public joinSessionRoute(sessionID: string) {
     return `/sessions/${sessionID}/join`;
   }
 
+  // eslint-disable-next-line class-methods-use-this
+  public sessionNodeRoute(sessionID: string) {
+    return `/sessions/${sessionID}/node`;
+  }
+
   // eslint-disable-next-line class-methods-use-this
   public getRandomPastelColor() {
     const l2 = (85 + 10 * Math.random()) / 100;
@@ -98,6 +98,19 @@ class ApiService {
     return response;
   }
 
+  /** Base URL of the backend node serving the session, several nodes each own a part of them. */
+  public async getSessionBackendURL(sessionID: string): Promise<string | undefined> {
+    try {
+      const response = await axios.get<{ url: string | null }>(
+        `${constants.backendURL}${constants.sessionNodeRoute(sessionID)}`
+      );
+      return response.data.url ?? constants.backendURL;
+    } catch (e) {
+      console.error(e);
+      return constants.backendURL;
+    }
+  }
+
   public async getAllDiveniData() {
     const response = (await axios.get(constants.backendURL + constants.getDiveniAnalytics))
       .data as {
@@ -1,18 +1,94 @@
-import { StoreState } from "@/types";
+import apiService from "@/services/api.service";
+import { IssueImportUpdate, MemberUpdate, StoreState, TimerState } from "@/types";
 import SockJS from "sockjs-client";
 import Vue from "vue";
 import Vuex from "vuex";
-import webstomp from "webstomp-client";
+import webstomp, { Frame } from "webstomp-client";
 import Constants from "../constants";
 
 Vue.use(Vuex);
+
+// broadcasts arrive on the topic of the session, private messages on the user route
+function subscribeRoute(state: StoreState, route: string, callback: (frame: Frame) => void) {
+  state.stompClient?.subscribe(route, callback);
+  if (state.sessionID) {
+    const sessionRoute = Constants.webSocketSessionTopicRoute(state.sessionID, route);
+    state.stompClient?.subscribe(sessionRoute, callback);
+  }
+}
+
+// snapshots replace the member list, deltas are applied in version order
+function applyMemberUpdate(state: StoreState, update: MemberUpdate) {
+  if (update.type === "SNAPSHOT") {
+    if (state.membersVersion === undefined || update.version >= state.membersVersion) {
+      state.members = update.members ?? [];
+      state.highlightedMembers = update.highlightedMembers ?? [];
+      state.membersVersion = update.version;
+    }
+    return;
+  }
+  if (state.membersVersion !== undefined && update.version <= state.membersVersion) {
+    return;
+  }
+  if (state.membersVersion === undefined || update.version !== state.membersVersion + 1) {
+    // an update was missed, the snapshot brings the member list up to date
+    state.stompClient?.send(Constants.webSocketMembersSnapshotRoute);
+    return;
+  }
+  if (update.type === "ESTIMATION_CHANGED" && update.member) {
+    const changed = update.member;
+    state.members = state.members.map((m) => (m.memberID === changed.memberID ? changed : m));
+  } else if (update.type === "ESTIMATIONS_CHANGED" && update.members) {
+    const changed = new Map(update.members.map((m) => [m.memberID, m]));
+    state.members = state.members.map((m) => changed.get(m.memberID) ?? m);
+  } else if (update.type === "MEMBER_LEFT") {
+    state.members = state.members.filter((m) => m.memberID !== update.memberID);
+  }
+  state.membersVersion = update.version;
+}
+
+const MAX_NODE_RECONNECTS = 2;
+
+// a node rejects the handshake of a session another node owns, so a failed connection asks
+// for the owner of the session again and reconnects there
+function connect(state: StoreState, url: string, sessionID: string, attempt: number) {
+  state.stompClient = webstomp.over(new SockJS(url));
+  if (process.env.NODE_ENV === "production") {
+    // eslint-disable-next-line @typescript-eslint/no-empty-function
+    state.stompClient.debug = () => {};
+  }
+  state.stompClient.connect(
+    {},
+    () => {
+      state.webSocketConnected = true;
+    },
+    (error) => {
+      console.error(error);
+      const wasConnected = state.webSocketConnected;
+      state.webSocketConnected = false;
+      if (wasConnected || attempt >= MAX_NODE_RECONNECTS) {
+        return;
+      }
+      const path = url.substring(url.indexOf("/connect"));
+      apiService.getSessionBackendURL(sessionID).then((backendURL) => {
+        const ownerURL = `${backendURL}${path}`;
+        if (ownerURL !== url && state.sessionID === sessionID) {
+          connect(state, ownerURL, sessionID, attempt + 1);
+        }
+      });
+    }
+  );
+}
+
 export default new Vuex.Store<StoreState>({
   state: {
     stompClient: undefined,
+    sessionID: undefined,
     webSocketConnected: false,
     memberUpdates: [],
     userStories: [],
     members: [],
+    membersVersion: undefined,
     notifications: [],
     highlightedMembers: [],
     timerTimestamp: undefined,
@@ -23,95 +99,122 @@ export default new Vuex.Store<StoreState>({
     hostEstimation: undefined,
     selectedUserStoryIndex: undefined,
     autoReveal: false,
+    issueImport: undefined,
+    pendingUserStories: [],
   },
   mutations: {
     setMembers(state, members) {
       state.members = members;
     },
-    connectToBackendWS(state, url) {
-      state.stompClient = webstomp.over(new SockJS(url));
-      if (process.env.NODE_ENV === "production") {
-        // eslint-disable-next-line @typescript-eslint/no-empty-function
-        state.stompClient.debug = () => {};
-      }
-      state.stompClient.connect(
-        {},
-        () => {
-          state.webSocketConnected = true;
-        },
-        (error) => {
-          console.error(error);
-          state.webSocketConnected = false;
-        }
-      );
+    connectToBackendWS(state, { url, sessionID }) {
+      state.sessionID = sessionID;
+      connect(state, url, sessionID, 0);
     },
     subscribeOnBackendWSMemberUpdates(state) {
-      state.stompClient?.subscribe(Constants.webSocketMemberListenRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketMemberListenRoute, (frame) => {
         state.memberUpdates = state.memberUpdates.concat([frame.body]);
       });
     },
     subscribeOnBackendWSMemberUpdatesWithAutoReveal(state) {
-      state.stompClient?.subscribe(Constants.webSocketMemberAutoRevealListenRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketMemberAutoRevealListenRoute, (frame) => {
         const splittedFrame = frame.body.split(" ");
         state.autoReveal = splittedFrame[1] === "true";
         state.memberUpdates = state.memberUpdates.concat([splittedFrame[0]]);
       });
     },
     subscribeOnBackendWSStoriesUpdated(state) {
-      state.stompClient?.subscribe(Constants.webSocketMemberListenUserStoriesRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketMemberListenUserStoriesRoute, (frame) => {
         state.userStories = JSON.parse(frame.body);
       });
     },
     subscribeOnBackendWSStorySelected(state) {
-      state.stompClient?.subscribe(Constants.webSocketSelectedUserStoryRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketSelectedUserStoryRoute, (frame) => {
         state.selectedUserStoryIndex = +frame.body;
       });
     },
     subscribeOnBackendWSAdminUpdate(state) {
-      state.stompClient?.subscribe(Constants.webSocketMembersUpdatedRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketMembersUpdatedRoute, (frame) => {
         console.log(`web socket admin receive update: message ${frame}`);
-        state.members = JSON.parse(frame.body).members;
-        state.highlightedMembers = JSON.parse(frame.body).highlightedMembers;
+        applyMemberUpdate(state, JSON.parse(frame.body));
       });
     },
     subscribeOnBackendWSHostVoting(state) {
-      state.stompClient?.subscribe(Constants.webSocketMemberListenHostVotingRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketMemberListenHostVotingRoute, (frame) => {
         state.hostVoting = JSON.parse(frame.body);
       });
     },
     subscribeOnBackendWSHostEstimation(state) {
-      state.stompClient?.subscribe(Constants.webSocketMembersUpdatedHostEstimation, (frame) => {
+      subscribeRoute(state, Constants.webSocketMembersUpdatedHostEstimation, (frame) => {
         state.hostEstimation = JSON.parse(frame.body);
       });
     },
     subscribeOnBackendWSTimerStart(state) {
-      state.stompClient?.subscribe(Constants.webSocketTimerStartRoute, (frame) => {
+      subscribeRoute(state, Constants.webSocketTimerStartRoute, (frame) => {
         console.log(`Got timer start ${frame.body}`);
-        state.timerTimestamp = frame.body;
+        const timer = JSON.parse(frame.body) as TimerState;
+        // moved onto the local clock, so the countdown is right even if the clocks differ
+        state.timerTimestamp = new Date(
+          timer.startedAt + Date.now() - timer.serverTime
+        ).toISOString();
       });
     },
     subscribeOnBackendWSNotify(state) {
-      state.stompClient?.subscribe(Constants.websocketNotification, (frame) => {
+      subscribeRoute(state, Constants.websocketNotification, (frame) => {
         state.notifications = state.notifications.concat([JSON.parse(frame.body)]);
       });
     },
+    // the stories of an import arrive page by page on the private route of the admin,
+    // they only replace the current stories once the import is done
+    subscribeOnBackendWSIssueImport(state) {
+      state.stompClient?.subscribe(Constants.webSocketIssueImportRoute, (frame) => {
+        const update = JSON.parse(frame.body) as IssueImportUpdate;
+        if (update.state === "RUNNING") {
+          state.pendingUserStories = state.pendingUserStories.concat(update.userStories);
+        } else {
+          if (update.state === "DONE") {
+            state.userStories = state.pendingUserStories;
+          }
+          state.pendingUserStories = [];
+        }
+        state.issueImport = update;
+      });
+    },
+    startIssueImport(state, { tokenIdentifier, projectName }) {
+      state.pendingUserStories = [];
+      state.issueImport = { projectName, state: "RUNNING", userStories: [], imported: 0, total: 0 };
+      state.stompClient?.send(
+        Constants.webSocketImportIssuesRoute,
+        JSON.stringify({ tokenIdentifier, projectName })
+      );
+    },
+    cancelIssueImport(state) {
+      state.stompClient?.send(Constants.webSocketCancelImportRoute);
+    },
     sendViaBackendWS(state, { endPoint, data }) {
       state.stompClient?.send(endPoint, data);
     },
     clearStore(state) {
       state.members = [];
+      state.membersVersion = undefined;
       state.userStories = [];
       state.memberUpdates = [];
       state.notifications = [];
+      state.issueImport = undefined;
+      state.pendingUserStories = [];
       state.webSocketConnected = false;
       state.stompClient = undefined;
+      state.sessionID = undefined;
     },
     clearStoreWithoutUserStories(state) {
       state.members = [];
+      state.membersVersion = undefined;
       state.memberUpdates = [];
       state.notifications = [];
+      state.issueImport = undefined;
+      state.pendingUserStories = [];
       state.webSocketConnected = false;
       state.stompClient = undefined;
+      state.sessionID = undefined;
     },
     setSelectedProject(state, project) {
       state.selectedProject = project;
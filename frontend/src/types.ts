@@ -3,10 +3,12 @@ import Project from "./model/Project";
 
 export interface StoreState {
   stompClient: Client | undefined;
+  sessionID: string | undefined;
   webSocketConnected: boolean;
   memberUpdates: string[];
   userStories: Record<string, unknown>[];
   members: Record<string, unknown>[];
+  membersVersion: number | undefined;
   notifications: Record<string, unknown>[];
   highlightedMembers: Record<string, unknown>[];
   timerTimestamp: string | undefined;
@@ -17,6 +19,30 @@ export interface StoreState {
   hostEstimation: string | undefined;
   selectedUserStoryIndex: number | undefined;
   autoReveal: boolean;
+  issueImport: IssueImportUpdate | undefined;
+  pendingUserStories: Record<string, unknown>[];
+}
+
+export interface MemberUpdate {
+  type: "SNAPSHOT" | "ESTIMATION_CHANGED" | "ESTIMATIONS_CHANGED" | "MEMBER_LEFT";
+  version: number;
+  members?: Record<string, unknown>[];
+  highlightedMembers?: Record<string, unknown>[];
+  member?: Record<string, unknown>;
+  memberID?: string;
+}
+
+export interface IssueImportUpdate {
+  projectName: string;
+  state: "RUNNING" | "DONE" | "FAILED" | "CANCELLED";
+  userStories: Record<string, unknown>[];
+  imported: number;
+  total: number;
+}
+
+export interface TimerState {
+  startedAt: number;
+  serverTime: number;
 }
 
 export interface JiraRequestTokenDto {